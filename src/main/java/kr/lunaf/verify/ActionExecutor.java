@@ -4,160 +4,392 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
 import kr.lunaf.verify.api.LunaVerifierActionContext;
 import kr.lunaf.verify.api.LunaVerifierActionHandler;
+import kr.lunaf.verify.api.LunaVerifierAsyncActionHandler;
+import kr.lunaf.verify.api.LunaVerifierHandlerOptions;
 import kr.lunaf.verify.api.LunaVerifierPayload;
 import kr.lunaf.verify.event.LunaVerifierActionEvent;
+import kr.lunaf.verify.event.LunaVerifierActionsCompletedEvent;
 import kr.lunaf.verify.event.LunaVerifierHttpRequestEvent;
 import org.bukkit.entity.Player;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class ActionExecutor {
+  private enum StepOutcome {
+    OK,
+    FAILED,
+    SKIPPED
+  }
+
+  private static final CompletableFuture<Boolean> DONE = CompletableFuture.completedFuture(true);
+  private static final CompletableFuture<Boolean> FAILED = CompletableFuture.completedFuture(false);
+
   private final JavaPlugin plugin;
+  private final OnlinePlayerIndex playerIndex;
+  private final DeferredActionQueue deferredActions;
   private final Gson gson = new Gson();
   private final boolean enableHttpActions;
   private final boolean logUnknownActions;
-  private final Set<String> httpAllowlist;
   private final int httpTimeoutSeconds;
   private final boolean logHttpResponse;
   private final int logHttpResponseMax;
-  private final Set<String> httpAllowedSchemes;
-  private final Set<Integer> httpAllowedPorts;
-  private final HttpClient httpClient;
-  private final ExecutorService httpExecutor;
-  private final ConcurrentMap<String, LunaVerifierActionHandler> actionHandlers = new ConcurrentHashMap<>();
-
-  public ActionExecutor(JavaPlugin plugin, FileConfiguration config) {
+  private final boolean logHttpResponseDigest;
+  private final EgressPolicy egressPolicy;
+  private final HttpActionEngine httpEngine;
+  private final HttpOutbox httpOutbox;
+  private final HttpBatcher httpBatcher;
+  private final ConcurrentMap<String, ManagedActionHandler> actionHandlers = new ConcurrentHashMap<>();
+  private final Set<CompletableFuture<Boolean>> mainThreadTasks = ConcurrentHashMap.newKeySet();
+  private final Map<String, ActionPlan> eventActionPlans;
+  private final Executor asyncExecutor;
+  private final ActionRateLimiter rateLimiter;
+  private final DelayedActionScheduler delayedActions;
+
+  public ActionExecutor(
+    JavaPlugin plugin,
+    FileConfiguration config,
+    OnlinePlayerIndex playerIndex,
+    DeferredActionQueue deferredActions
+  ) {
     this.plugin = plugin;
+    this.asyncExecutor = task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    this.playerIndex = playerIndex;
+    this.deferredActions = deferredActions;
     this.enableHttpActions = config.getBoolean("enable-http-actions", false);
     this.logUnknownActions = config.getBoolean("log-unknown-actions", true);
-    this.httpAllowlist = new HashSet<>();
-    if (config.isList("http-allowlist")) {
-      for (Object item : config.getList("http-allowlist")) {
-        if (item != null) {
-          httpAllowlist.add(String.valueOf(item).toLowerCase(Locale.ROOT));
-        }
-      }
-    }
     this.httpTimeoutSeconds = Math.max(1, config.getInt("http-timeout-seconds", 5));
     this.logHttpResponse = config.getBoolean("http-log-response", false);
     this.logHttpResponseMax = Math.max(100, config.getInt("http-log-response-max", 500));
-    this.httpAllowedSchemes = new HashSet<>();
-    if (config.isList("http-allowed-schemes")) {
-      for (Object item : config.getList("http-allowed-schemes")) {
-        if (item != null) {
-          final String scheme = String.valueOf(item).trim().toLowerCase(Locale.ROOT);
-          if (!scheme.isEmpty()) {
-            httpAllowedSchemes.add(scheme);
-          }
-        }
-      }
-    }
-    if (httpAllowedSchemes.isEmpty()) {
-      httpAllowedSchemes.add("http");
-      httpAllowedSchemes.add("https");
-    }
-    this.httpAllowedPorts = new HashSet<>();
-    if (config.isList("http-allowed-ports")) {
-      for (Object item : config.getList("http-allowed-ports")) {
-        if (item != null) {
-          try {
-            int port = Integer.parseInt(String.valueOf(item).trim());
-            if (port > 0) {
-              httpAllowedPorts.add(port);
-            }
-          } catch (NumberFormatException err) {
-            // ignore
-          }
-        }
-      }
-    }
-    if (httpAllowedPorts.isEmpty()) {
-      httpAllowedPorts.add(80);
-      httpAllowedPorts.add(443);
-    }
-    this.httpClient = HttpClient.newBuilder()
-      .connectTimeout(Duration.ofSeconds(3))
-      .build();
-    this.httpExecutor = Executors.newFixedThreadPool(2, runnable -> {
-      Thread thread = new Thread(runnable);
-      thread.setName("lunaverifier-http");
-      thread.setDaemon(true);
-      return thread;
-    });
+    this.logHttpResponseDigest = config.getBoolean("http-log-response-digest", false);
+    this.egressPolicy = EgressPolicy.fromConfig(config, plugin.getLogger());
+    this.httpEngine = new HttpActionEngine(
+      config.getBoolean("http-prefer-http2", true),
+      config.getInt("http-max-concurrent-per-host", 4),
+      config.getInt("http-queue-size-per-host", 200),
+      HttpActionEngine.OverflowPolicy.parse(config.getString("http-overflow-policy", "drop-newest")),
+      config.getBoolean("http-breaker-enabled", true)
+        ? new CircuitBreaker.Settings(
+          config.getInt("http-breaker-window-size", 20),
+          config.getInt("http-breaker-min-calls", 10),
+          config.getInt("http-breaker-failure-rate-percent", 50),
+          config.getLong("http-breaker-open-ms", 30000L),
+          config.getInt("http-breaker-half-open-probes", 1)
+        )
+        : null
+    );
+    if (enableHttpActions && config.getBoolean("http-outbox-enabled", true)) {
+      this.httpOutbox = new HttpOutbox(
+        plugin.getLogger(),
+        new File(plugin.getDataFolder(), "outbox"),
+        httpEngine,
+        egressPolicy,
+        config.getInt("http-outbox-max-attempts", 8),
+        config.getLong("http-outbox-backoff-base-ms", 2000L),
+        config.getLong("http-outbox-backoff-max-ms", 300000L),
+        config.getInt("http-outbox-max-items", 10000),
+        config.getInt("http-outbox-max-inflight-per-host", 2)
+      );
+      this.httpOutbox.start();
+    } else {
+      this.httpOutbox = null;
+    }
+    this.httpBatcher = new HttpBatcher(this::sendHttpRequest);
+    this.eventActionPlans = loadEventActionPlans(config.getConfigurationSection("event-actions"));
+    this.rateLimiter = new ActionRateLimiter(plugin, config);
+    this.rateLimiter.start();
+    this.delayedActions = new DelayedActionScheduler(
+      plugin,
+      this::dispatchDelayed,
+      asyncExecutor,
+      config.getBoolean("delayed-actions-persist", true) ? new File(plugin.getDataFolder(), "delayed-actions.json") : null,
+      config.getInt("delayed-actions-wheel-size", 512),
+      config.getInt("delayed-actions-max-pending", 10000),
+      config.getLong("delayed-actions-save-interval-seconds", 30L)
+    );
+    this.delayedActions.start();
   }
 
   public void execute(JsonArray actions, TokenReplacer tokens, String eventType, LunaVerifierPayload payload) {
     if (actions == null || actions.isEmpty()) {
       return;
     }
-    for (JsonElement element : actions) {
-      if (!element.isJsonObject()) {
+    execute(ActionPlan.compile(actions, plugin.getLogger()), tokens, eventType, payload);
+  }
+
+  public CompletableFuture<Void> execute(ActionPlan plan, TokenReplacer tokens, String eventType, LunaVerifierPayload payload) {
+    if (plan == null || plan.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return rateLimiter.submit(resolvePlayerKey(payload), eventType, () -> runPlan(plan, tokens, eventType, payload));
+  }
+
+  private CompletableFuture<Void> runPlan(ActionPlan plan, TokenReplacer tokens, String eventType, LunaVerifierPayload payload) {
+    final long startedAt = System.nanoTime();
+    final List<ActionPlan.Step> steps = plan.getSteps();
+    final List<CompletableFuture<StepOutcome>> outcomes = new ArrayList<>(steps.size());
+    for (ActionPlan.Step step : steps) {
+      final int[] dependencies = step.getDependencies();
+      final int previous = step.getPrevious();
+      if (dependencies.length == 0 && previous < 0) {
+        outcomes.add(runStep(step, tokens, eventType, payload));
         continue;
       }
-      final JsonObject action = element.getAsJsonObject();
-      final String type = getString(action, "type");
-      if (type == null) {
-        continue;
+      final CompletableFuture<?>[] waits = new CompletableFuture<?>[dependencies.length + (previous < 0 ? 0 : 1)];
+      for (int i = 0; i < dependencies.length; i++) {
+        waits[i] = outcomes.get(dependencies[i]);
       }
-      if (isActionCancelled(type, action, tokens, eventType, payload)) {
-        continue;
+      if (previous >= 0) {
+        waits[dependencies.length] = outcomes.get(previous);
       }
-      switch (type) {
-        case "console_command":
-          executeConsoleCommand(action, tokens);
-          break;
-        case "server_command":
-          executeConsoleCommand(action, tokens);
-          break;
-        case "player_command":
-          executePlayerCommand(action, tokens);
-          break;
-        case "player_message":
-          executePlayerMessage(action, tokens);
-          break;
-        case "broadcast":
-          executeBroadcast(action, tokens);
-          break;
-        case "http_request":
-          executeHttpRequest(action, tokens, eventType, payload);
-          break;
-        default:
-          if (!executeCustomAction(type, action, tokens, eventType, payload) && logUnknownActions) {
-            plugin.getLogger().warning("Unknown action type: " + type);
+      // The previous action only orders this one; failures skip it only through "after".
+      outcomes.add(CompletableFuture.allOf(waits).thenComposeAsync(ignored -> {
+        for (int i = 0; i < dependencies.length; i++) {
+          if (waits[i].join() != StepOutcome.OK) {
+            return CompletableFuture.completedFuture(StepOutcome.SKIPPED);
           }
-          break;
+        }
+        return runStep(step, tokens, eventType, payload);
+      }, asyncExecutor));
+    }
+    return CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+      int succeeded = 0;
+      int failed = 0;
+      int skipped = 0;
+      for (CompletableFuture<StepOutcome> outcome : outcomes) {
+        switch (outcome.join()) {
+          case OK:
+            succeeded++;
+            break;
+          case SKIPPED:
+            skipped++;
+            break;
+          default:
+            failed++;
+            break;
+        }
       }
+      Bukkit.getPluginManager().callEvent(new LunaVerifierActionsCompletedEvent(
+        isAsync(),
+        payload,
+        eventType,
+        succeeded,
+        failed,
+        skipped,
+        (System.nanoTime() - startedAt) / 1_000_000L
+      ));
+    });
+  }
+
+  private static String resolvePlayerKey(LunaVerifierPayload payload) {
+    if (payload == null) {
+      return null;
+    }
+    final String uuid = payload.getMcUuid();
+    if (uuid != null && !uuid.isBlank()) {
+      return uuid;
     }
+    return payload.getMcIgn();
+  }
+
+  private CompletableFuture<StepOutcome> runStep(
+    ActionPlan.Step step,
+    TokenReplacer tokens,
+    String eventType,
+    LunaVerifierPayload payload
+  ) {
+    final CompletableFuture<Boolean> result;
+    try {
+      final long delayTicks = resolveDelayTicks(step.getAction(), tokens);
+      result = delayTicks > 0
+        ? delayedActions.schedule(step.getAction(), delayTicks, tokens, eventType, payload)
+        : dispatchStep(step.getType(), step.getAction(), tokens, eventType, payload);
+    } catch (Exception err) {
+      plugin.getLogger().warning("Action " + step.getType() + " failed: " + err.getMessage());
+      return CompletableFuture.completedFuture(StepOutcome.FAILED);
+    }
+    return result.handle((ok, err) -> err == null && Boolean.TRUE.equals(ok) ? StepOutcome.OK : StepOutcome.FAILED);
+  }
+
+  private CompletableFuture<Boolean> dispatchDelayed(
+    JsonObject action,
+    TokenReplacer tokens,
+    String eventType,
+    LunaVerifierPayload payload
+  ) {
+    final String type = normalizeActionType(getString(action, "type"));
+    if (type == null) {
+      return FAILED;
+    }
+    return dispatchStep(type, action, tokens, eventType, payload);
+  }
+
+  private long resolveDelayTicks(JsonObject action, TokenReplacer tokens) {
+    final String delay = getString(action, "delay_ticks");
+    if (delay != null && !delay.isBlank()) {
+      try {
+        return Math.max(0L, Long.parseLong(tokens.apply(delay).trim()));
+      } catch (NumberFormatException err) {
+        plugin.getLogger().warning("Invalid delay_ticks: " + delay);
+        return 0L;
+      }
+    }
+    final String runAt = getString(action, "run_at");
+    if (runAt == null || runAt.isBlank()) {
+      return 0L;
+    }
+    final long dueAt = parseRunAt(tokens.apply(runAt).trim());
+    if (dueAt < 0) {
+      plugin.getLogger().warning("Invalid run_at: " + runAt);
+      return 0L;
+    }
+    return Math.max(0L, (dueAt - System.currentTimeMillis() + 49L) / 50L);
+  }
+
+  private static long parseRunAt(String value) {
+    try {
+      final long epoch = Long.parseLong(value);
+      return epoch < 100_000_000_000L ? epoch * 1000L : epoch;
+    } catch (NumberFormatException err) {
+      // not an epoch value
+    }
+    try {
+      return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+    } catch (DateTimeParseException err) {
+      return -1L;
+    }
+  }
+
+  private CompletableFuture<Boolean> dispatchStep(
+    String type,
+    JsonObject action,
+    TokenReplacer tokens,
+    String eventType,
+    LunaVerifierPayload payload
+  ) {
+    if (isActionCancelled(type, action, tokens, eventType, payload)) {
+      return FAILED;
+    }
+    switch (type) {
+      case "console_command":
+        return executeConsoleCommand(action, tokens);
+      case "server_command":
+        return executeConsoleCommand(action, tokens);
+      case "player_command":
+        return executePlayerCommand(action, tokens);
+      case "player_message":
+        return executePlayerMessage(action, tokens);
+      case "broadcast":
+        return executeBroadcast(action, tokens);
+      case "http_request":
+        return executeHttpRequest(action, tokens, eventType, payload);
+      default:
+        final CompletableFuture<Boolean> custom = executeCustomAction(type, action, tokens, eventType, payload);
+        if (custom == null) {
+          if (logUnknownActions) {
+            plugin.getLogger().warning("Unknown action type: " + type);
+          }
+          return FAILED;
+        }
+        return custom;
+    }
+  }
+
+  public ActionPlan getEventActionPlan(String eventType) {
+    if (eventType == null || eventType.isBlank()) {
+      return ActionPlan.empty();
+    }
+    final ActionPlan plan = eventActionPlans.get(eventType.trim().toLowerCase(Locale.ROOT));
+    return plan == null ? ActionPlan.empty() : plan;
   }
 
   public void shutdown() {
-    httpExecutor.shutdownNow();
+    rateLimiter.stop();
+    delayedActions.stop();
+    for (CompletableFuture<Boolean> task : mainThreadTasks) {
+      task.completeExceptionally(new RejectedExecutionException("plugin disabled"));
+    }
+    mainThreadTasks.clear();
+    for (ManagedActionHandler handler : actionHandlers.values()) {
+      handler.shutdown();
+    }
+    actionHandlers.clear();
+    httpBatcher.shutdown();
+    if (httpOutbox != null) {
+      httpOutbox.stop();
+    }
+    httpEngine.shutdown();
+  }
+
+  public ActionRateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  public DelayedActionScheduler getDelayedActions() {
+    return delayedActions;
+  }
+
+  public HttpOutbox getHttpOutbox() {
+    return httpOutbox;
+  }
+
+  public List<HttpActionEngine.HostMetrics> getHttpMetrics() {
+    return httpEngine.getMetrics();
   }
 
   public void registerActionHandler(String type, LunaVerifierActionHandler handler) {
+    registerActionHandler(type, handler, LunaVerifierHandlerOptions.inline());
+  }
+
+  public void registerActionHandler(String type, LunaVerifierActionHandler handler, LunaVerifierHandlerOptions options) {
+    if (handler == null) {
+      return;
+    }
+    registerAsyncActionHandler(type, context -> {
+      handler.handle(context);
+      return CompletableFuture.completedFuture(null);
+    }, options);
+  }
+
+  public void registerAsyncActionHandler(
+    String type,
+    LunaVerifierAsyncActionHandler handler,
+    LunaVerifierHandlerOptions options
+  ) {
     final String key = normalizeActionType(type);
     if (key == null || handler == null) {
       return;
     }
-    actionHandlers.put(key, handler);
+    final ManagedActionHandler previous = actionHandlers.put(key, new ManagedActionHandler(plugin, key, handler, options));
+    if (previous != null) {
+      previous.shutdown();
+    }
   }
 
   public void unregisterActionHandler(String type) {
@@ -165,7 +397,19 @@ public class ActionExecutor {
     if (key == null) {
       return;
     }
-    actionHandlers.remove(key);
+    final ManagedActionHandler previous = actionHandlers.remove(key);
+    if (previous != null) {
+      previous.shutdown();
+    }
+  }
+
+  public List<String> getActionHandlerMetrics() {
+    final List<String> metrics = new ArrayList<>();
+    for (ManagedActionHandler handler : actionHandlers.values()) {
+      metrics.add(handler.describeMetrics());
+    }
+    Collections.sort(metrics);
+    return metrics;
   }
 
   public boolean hasActionHandler(String type) {
@@ -180,10 +424,10 @@ public class ActionExecutor {
     return Set.copyOf(actionHandlers.keySet());
   }
 
-  private void executeConsoleCommand(JsonObject action, TokenReplacer tokens) {
+  private CompletableFuture<Boolean> executeConsoleCommand(JsonObject action, TokenReplacer tokens) {
     String command = getString(action, "command");
     if (command == null || command.isBlank()) {
-      return;
+      return FAILED;
     }
     command = tokens.apply(command).trim();
     if (command.startsWith("/")) {
@@ -191,17 +435,15 @@ public class ActionExecutor {
     }
     final String finalCommand = command;
     if (finalCommand.isEmpty()) {
-      return;
+      return FAILED;
     }
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand);
-    });
+    return callOnMainThread("console_command", () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand));
   }
 
-  private void executePlayerCommand(JsonObject action, TokenReplacer tokens) {
+  private CompletableFuture<Boolean> executePlayerCommand(JsonObject action, TokenReplacer tokens) {
     String command = getString(action, "command");
     if (command == null || command.isBlank()) {
-      return;
+      return FAILED;
     }
     String playerName = getString(action, "player");
     if (playerName == null || playerName.isBlank()) {
@@ -211,7 +453,7 @@ public class ActionExecutor {
     }
     if (playerName == null || playerName.isBlank()) {
       plugin.getLogger().warning("player_command missing player");
-      return;
+      return FAILED;
     }
     command = tokens.apply(command).trim();
     if (command.startsWith("/")) {
@@ -220,25 +462,28 @@ public class ActionExecutor {
     final String finalCommand = command;
     final String targetName = playerName.trim();
     if (finalCommand.isEmpty()) {
-      return;
+      return FAILED;
     }
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      Player player = Bukkit.getPlayerExact(targetName);
-      if (player == null) {
-        plugin.getLogger().warning("player_command target offline: " + targetName);
-        return;
+    if (!playerIndex.isOnline(targetName)) {
+      return handleOfflineTarget("player_command", action, tokens, targetName, finalCommand) ? DONE : FAILED;
+    }
+    return callOnMainThread("player_command", () -> {
+      final Player player = playerIndex.getPlayer(targetName);
+      if (player == null || !player.isOnline()) {
+        return handleOfflineTarget("player_command", action, tokens, targetName, finalCommand);
       }
       player.performCommand(finalCommand);
+      return true;
     });
   }
 
-  private void executePlayerMessage(JsonObject action, TokenReplacer tokens) {
+  private CompletableFuture<Boolean> executePlayerMessage(JsonObject action, TokenReplacer tokens) {
     String message = getString(action, "message");
     if (message == null || message.isBlank()) {
       message = getString(action, "content");
     }
     if (message == null || message.isBlank()) {
-      return;
+      return FAILED;
     }
     String playerName = getString(action, "player");
     if (playerName == null || playerName.isBlank()) {
@@ -248,41 +493,110 @@ public class ActionExecutor {
     }
     if (playerName == null || playerName.isBlank()) {
       plugin.getLogger().warning("player_message missing player");
-      return;
+      return FAILED;
     }
     final String finalMessage = tokens.apply(message);
     final String targetName = playerName.trim();
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      Player player = Bukkit.getPlayerExact(targetName);
-      if (player == null) {
-        plugin.getLogger().warning("player_message target offline: " + targetName);
-        return;
+    if (!playerIndex.isOnline(targetName)) {
+      return handleOfflineTarget("player_message", action, tokens, targetName, finalMessage) ? DONE : FAILED;
+    }
+    return callOnMainThread("player_message", () -> {
+      final Player player = playerIndex.getPlayer(targetName);
+      if (player == null || !player.isOnline()) {
+        return handleOfflineTarget("player_message", action, tokens, targetName, finalMessage);
       }
       player.sendMessage(finalMessage);
+      return true;
     });
   }
 
-  private void executeBroadcast(JsonObject action, TokenReplacer tokens) {
+  private boolean handleOfflineTarget(
+    String type,
+    JsonObject action,
+    TokenReplacer tokens,
+    String targetName,
+    String value
+  ) {
+    if (!getBoolean(action, "defer_until_online", false) || deferredActions == null) {
+      plugin.getLogger().warning(type + " target offline: " + targetName);
+      return false;
+    }
+    final UUID uuid = resolveTargetUuid(action, tokens, targetName);
+    if (uuid == null) {
+      plugin.getLogger().warning(type + " target offline and uuid unknown: " + targetName);
+      return false;
+    }
+    return deferredActions.enqueue(uuid, type, value);
+  }
+
+  private UUID resolveTargetUuid(JsonObject action, TokenReplacer tokens, String targetName) {
+    String rawUuid = getString(action, "uuid");
+    if (rawUuid != null && !rawUuid.isBlank()) {
+      rawUuid = tokens.apply(rawUuid);
+    } else {
+      final String tokenName = tokens.apply("%player%");
+      if (tokenName == null || !tokenName.trim().equalsIgnoreCase(targetName)) {
+        return null;
+      }
+      rawUuid = tokens.apply("%uuid%");
+    }
+    if (rawUuid == null || rawUuid.isBlank()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(rawUuid.trim());
+    } catch (IllegalArgumentException err) {
+      return null;
+    }
+  }
+
+  private CompletableFuture<Boolean> executeBroadcast(JsonObject action, TokenReplacer tokens) {
     String message = getString(action, "message");
     if (message == null || message.isBlank()) {
       message = getString(action, "content");
     }
     if (message == null || message.isBlank()) {
-      return;
+      return FAILED;
     }
     final String finalMessage = tokens.apply(message);
-    Bukkit.getScheduler().runTask(plugin, () -> Bukkit.broadcastMessage(finalMessage));
+    return callOnMainThread("broadcast", () -> {
+      Bukkit.broadcastMessage(finalMessage);
+      return true;
+    });
   }
 
-  private void executeHttpRequest(JsonObject action, TokenReplacer tokens, String eventType, LunaVerifierPayload payload) {
+  private CompletableFuture<Boolean> callOnMainThread(String type, BooleanSupplier task) {
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    if (!plugin.isEnabled()) {
+      result.completeExceptionally(new RejectedExecutionException("plugin disabled"));
+      return result;
+    }
+    mainThreadTasks.add(result);
+    result.whenComplete((ok, err) -> mainThreadTasks.remove(result));
+    try {
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        try {
+          result.complete(task.getAsBoolean());
+        } catch (Exception err) {
+          plugin.getLogger().warning("Action " + type + " failed: " + err.getMessage());
+          result.completeExceptionally(err);
+        }
+      });
+    } catch (Exception err) {
+      result.completeExceptionally(err);
+    }
+    return result;
+  }
+
+  private CompletableFuture<Boolean> executeHttpRequest(JsonObject action, TokenReplacer tokens, String eventType, LunaVerifierPayload payload) {
     if (!enableHttpActions) {
       plugin.getLogger().warning("http_request is disabled. Event: " + eventType);
-      return;
+      return FAILED;
     }
 
     String url = getString(action, "url");
     if (url == null || url.isBlank()) {
-      return;
+      return FAILED;
     }
     url = tokens.apply(url).trim();
 
@@ -291,27 +605,24 @@ public class ActionExecutor {
       uri = new URI(url);
     } catch (URISyntaxException err) {
       plugin.getLogger().warning("Invalid http_request url: " + url);
-      return;
-    }
-
-    final String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
-    if (!isAllowedScheme(scheme)) {
-      plugin.getLogger().warning("Blocked http_request scheme: " + scheme);
-      return;
-    }
-    int port = uri.getPort();
-    if (port == -1) {
-      port = defaultPortForScheme(scheme);
-    }
-    if (!isAllowedPort(port)) {
-      plugin.getLogger().warning("Blocked http_request port: " + port);
-      return;
-    }
-
-    final String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
-    if (!isAllowedHost(host)) {
-      plugin.getLogger().warning("Blocked http_request host: " + host);
-      return;
+      return FAILED;
+    }
+
+    switch (egressPolicy.check(uri)) {
+      case BLOCKED_SCHEME:
+        plugin.getLogger().warning("Blocked http_request scheme: " + uri.getScheme());
+        return FAILED;
+      case BLOCKED_PORT:
+        plugin.getLogger().warning("Blocked http_request port: " + uri.getPort());
+        return FAILED;
+      case BLOCKED_HOST:
+        plugin.getLogger().warning("Blocked http_request host: " + uri.getHost());
+        return FAILED;
+      case BLOCKED_ADDRESS:
+        plugin.getLogger().warning("Blocked http_request address: " + uri.getHost() + " resolves to a blocked range");
+        return FAILED;
+      default:
+        break;
     }
 
     String method = getString(action, "method");
@@ -376,9 +687,36 @@ public class ActionExecutor {
     );
     Bukkit.getPluginManager().callEvent(httpEvent);
     if (httpEvent.isCancelled()) {
-      return;
-    }
+      return FAILED;
+    }
+
+    if (bodyText != null && action.has("batch") && action.get("batch").isJsonObject()) {
+      final JsonObject batch = action.getAsJsonObject("batch");
+      final int maxItems = getInt(batch, "max_items");
+      final int maxLingerMs = getInt(batch, "max_linger_ms");
+      return httpBatcher.add(
+        uri,
+        method,
+        headerMap,
+        bodyText,
+        timeout,
+        shouldLogResponse,
+        maxItems > 0 ? maxItems : 100,
+        maxLingerMs > 0 ? maxLingerMs : 1000
+      );
+    }
+
+    return sendHttpRequest(uri, method, headerMap, bodyText, timeout, shouldLogResponse);
+  }
 
+  private CompletableFuture<Boolean> sendHttpRequest(
+    URI uri,
+    String method,
+    Map<String, String> headerMap,
+    String bodyText,
+    Duration timeout,
+    boolean shouldLogResponse
+  ) {
     final HttpRequest.Builder builder = HttpRequest.newBuilder()
       .uri(uri)
       .timeout(timeout);
@@ -391,44 +729,73 @@ public class ActionExecutor {
       builder.method(method, HttpRequest.BodyPublishers.noBody());
     }
 
-    httpExecutor.submit(() -> {
-      try {
-        HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-        if (shouldLogResponse) {
-          String body = response.body();
-          if (body == null) {
-            body = "";
-          }
-          if (body.length() > logHttpResponseMax) {
-            body = body.substring(0, logHttpResponseMax) + "...";
-          }
-          plugin.getLogger().info("http_request response " + response.statusCode() + " " + uri + " body=" + body);
+    final HttpResponse.BodyHandler<BoundedBodyHandler.BoundedBody> bodyHandler = new BoundedBodyHandler(
+      shouldLogResponse ? logHttpResponseMax : 0,
+      shouldLogResponse && logHttpResponseDigest
+    );
+    return httpEngine.submit(builder.build(), bodyHandler).handle((response, err) -> {
+      if (err != null || HttpOutbox.isRetryableStatus(response.statusCode())) {
+        final String error = err != null ? describeError(err) : "HTTP " + response.statusCode();
+        if (httpOutbox != null && httpOutbox.enqueue(uri, method, headerMap, bodyText, timeout, error)) {
+          plugin.getLogger().warning("http_request failed, queued for retry: " + error);
+        } else {
+          plugin.getLogger().warning("http_request failed: " + error);
         }
-      } catch (Exception err) {
-        plugin.getLogger().warning("http_request failed: " + err.getMessage());
+        return false;
       }
+      if (shouldLogResponse) {
+        final BoundedBodyHandler.BoundedBody body = response.body();
+        String text = body.text();
+        if (body.isTruncated()) {
+          text = text + "...";
+        }
+        final String digest = body.getSha256() == null ? "" : " sha256=" + body.getSha256();
+        plugin.getLogger().info("http_request response " + response.statusCode() + " " + uri
+          + " bytes=" + body.getTotalBytes() + digest + " body=" + text);
+      }
+      return response.statusCode() < 400;
     });
   }
 
-  private boolean isAllowedHost(String host) {
-    if (host == null || host.isBlank()) {
-      return false;
+  private static String describeError(Throwable err) {
+    Throwable cause = err;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
     }
-    if (httpAllowlist.isEmpty()) {
-      return false;
-    }
-    if (httpAllowlist.contains(host)) {
-      return true;
+    return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+  }
+
+  private Map<String, ActionPlan> loadEventActionPlans(ConfigurationSection section) {
+    if (section == null) {
+      return Map.of();
     }
-    for (String allowed : httpAllowlist) {
-      if (allowed.startsWith("*.") && host.endsWith(allowed.substring(1))) {
-        return true;
+    final Map<String, ActionPlan> plans = new HashMap<>();
+    for (String key : section.getKeys(true)) {
+      if (!section.isList(key)) {
+        continue;
+      }
+      final JsonElement tree;
+      try {
+        tree = gson.toJsonTree(section.getList(key));
+      } catch (Exception err) {
+        plugin.getLogger().warning("Invalid event-actions for " + key + ": " + err.getMessage());
+        continue;
+      }
+      if (!tree.isJsonArray()) {
+        continue;
+      }
+      final ActionPlan plan = ActionPlan.compile(tree.getAsJsonArray(), plugin.getLogger());
+      if (!plan.isEmpty()) {
+        plans.put(key.trim().toLowerCase(Locale.ROOT), plan);
       }
     }
-    return false;
+    if (!plans.isEmpty()) {
+      plugin.getLogger().info("Loaded event-actions for " + plans.size() + " event type(s).");
+    }
+    return Map.copyOf(plans);
   }
 
-  private boolean executeCustomAction(
+  private CompletableFuture<Boolean> executeCustomAction(
     String type,
     JsonObject action,
     TokenReplacer tokens,
@@ -437,14 +804,14 @@ public class ActionExecutor {
   ) {
     final String key = normalizeActionType(type);
     if (key == null) {
-      return false;
+      return null;
     }
-    final LunaVerifierActionHandler handler = actionHandlers.get(key);
+    final ManagedActionHandler handler = actionHandlers.get(key);
     if (handler == null) {
-      return false;
+      return null;
     }
-    handler.handle(new LunaVerifierActionContext(plugin, key, action, tokens, eventType, payload, isAsync()));
-    return true;
+    return handler.invoke(async -> new LunaVerifierActionContext(plugin, key, action, tokens, eventType, payload, async))
+      .handle((ignored, err) -> err == null);
   }
 
   private boolean isActionCancelled(
@@ -477,33 +844,6 @@ public class ActionExecutor {
     return !Bukkit.isPrimaryThread();
   }
 
-  private boolean isAllowedScheme(String scheme) {
-    if (scheme == null || scheme.isBlank()) {
-      return false;
-    }
-    return httpAllowedSchemes.contains(scheme.toLowerCase(Locale.ROOT));
-  }
-
-  private int defaultPortForScheme(String scheme) {
-    if (scheme == null) {
-      return -1;
-    }
-    if ("http".equalsIgnoreCase(scheme)) {
-      return 80;
-    }
-    if ("https".equalsIgnoreCase(scheme)) {
-      return 443;
-    }
-    return -1;
-  }
-
-  private boolean isAllowedPort(int port) {
-    if (port <= 0) {
-      return false;
-    }
-    return httpAllowedPorts.contains(port);
-  }
-
   private static String getString(JsonObject obj, String key) {
     if (obj == null || key == null || !obj.has(key) || obj.get(key).isJsonNull()) {
       return null;
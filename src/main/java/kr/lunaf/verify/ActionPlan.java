@@ -0,0 +1,189 @@
+package kr.lunaf.verify;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+public final class ActionPlan {
+  private static final int[] NO_DEPENDENCIES = new int[0];
+  private static final ActionPlan EMPTY = new ActionPlan(Collections.emptyList(), new JsonArray());
+  private final List<Step> steps;
+  private final JsonArray source;
+
+  private ActionPlan(List<Step> steps, JsonArray source) {
+    this.steps = steps;
+    this.source = source;
+  }
+
+  public static ActionPlan compile(JsonArray actions, Logger logger) {
+    if (actions == null || actions.isEmpty()) {
+      return EMPTY;
+    }
+    final List<JsonObject> valid = new ArrayList<>(actions.size());
+    final Map<String, Integer> indexById = new HashMap<>();
+    for (JsonElement element : actions) {
+      if (element == null || !element.isJsonObject()) {
+        continue;
+      }
+      final JsonObject action = element.getAsJsonObject();
+      if (getString(action, "type") == null) {
+        continue;
+      }
+      final String id = getString(action, "id");
+      if (id != null && !id.isBlank()) {
+        indexById.putIfAbsent(id, valid.size());
+      }
+      valid.add(action);
+    }
+    final List<Step> steps = new ArrayList<>(valid.size());
+    for (JsonObject action : valid) {
+      final int index = steps.size();
+      final String type = getString(action, "type");
+      // Actions keep their listed order unless they opt out with "parallel: true".
+      final int previous = index == 0 || getBoolean(action, "parallel") ? -1 : index - 1;
+      steps.add(new Step(
+        type,
+        action,
+        getString(action, "id"),
+        resolveDependencies(action, index, type, indexById, logger),
+        previous
+      ));
+    }
+    return new ActionPlan(Collections.unmodifiableList(steps), actions);
+  }
+
+  public static ActionPlan empty() {
+    return EMPTY;
+  }
+
+  public boolean isEmpty() {
+    return steps.isEmpty();
+  }
+
+  public List<Step> getSteps() {
+    return steps;
+  }
+
+  public JsonArray getSource() {
+    return source;
+  }
+
+  // Only ids of earlier actions are honoured, which keeps the graph acyclic.
+  private static int[] resolveDependencies(
+    JsonObject action,
+    int index,
+    String type,
+    Map<String, Integer> indexById,
+    Logger logger
+  ) {
+    if (!action.has("after")) {
+      return NO_DEPENDENCIES;
+    }
+    final JsonElement after = action.get("after");
+    final List<Integer> indexes = new ArrayList<>();
+    if (after.isJsonArray()) {
+      for (JsonElement item : after.getAsJsonArray()) {
+        addDependency(item, index, type, indexById, indexes, logger);
+      }
+    } else {
+      addDependency(after, index, type, indexById, indexes, logger);
+    }
+    if (indexes.isEmpty()) {
+      return NO_DEPENDENCIES;
+    }
+    final int[] result = new int[indexes.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = indexes.get(i);
+    }
+    return result;
+  }
+
+  private static void addDependency(
+    JsonElement item,
+    int index,
+    String type,
+    Map<String, Integer> indexById,
+    List<Integer> indexes,
+    Logger logger
+  ) {
+    if (item == null || !item.isJsonPrimitive()) {
+      return;
+    }
+    final String id = item.getAsString();
+    final Integer dependency = indexById.get(id);
+    if (dependency == null || dependency >= index) {
+      if (logger != null) {
+        logger.warning("Action #" + (index + 1) + " (" + type + ") ignores after \"" + id + "\": "
+          + (dependency == null ? "unknown id" : "it is not an earlier action"));
+      }
+      return;
+    }
+    if (!indexes.contains(dependency)) {
+      indexes.add(dependency);
+    }
+  }
+
+  private static boolean getBoolean(JsonObject obj, String key) {
+    if (obj == null || !obj.has(key) || obj.get(key).isJsonNull()) {
+      return false;
+    }
+    try {
+      return obj.get(key).getAsBoolean();
+    } catch (Exception err) {
+      return false;
+    }
+  }
+
+  private static String getString(JsonObject obj, String key) {
+    if (obj == null || key == null || !obj.has(key) || obj.get(key).isJsonNull()) {
+      return null;
+    }
+    try {
+      return obj.get(key).getAsString();
+    } catch (Exception err) {
+      return null;
+    }
+  }
+
+  public static final class Step {
+    private final String type;
+    private final JsonObject action;
+    private final String id;
+    private final int[] dependencies;
+    private final int previous;
+
+    private Step(String type, JsonObject action, String id, int[] dependencies, int previous) {
+      this.type = type;
+      this.action = action;
+      this.id = id;
+      this.dependencies = dependencies;
+      this.previous = previous;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public JsonObject getAction() {
+      return action;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public int[] getDependencies() {
+      return dependencies;
+    }
+
+    public int getPrevious() {
+      return previous;
+    }
+  }
+}
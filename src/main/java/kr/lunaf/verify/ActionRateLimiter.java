@@ -0,0 +1,340 @@
+package kr.lunaf.verify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+public class ActionRateLimiter {
+  public enum Policy {
+    DROP,
+    DEFER,
+    COALESCE;
+
+    public static Policy parse(String value) {
+      if (value == null) {
+        return DROP;
+      }
+      switch (value.trim().toLowerCase(Locale.ROOT)) {
+        case "defer":
+          return DEFER;
+        case "coalesce":
+          return COALESCE;
+        default:
+          return DROP;
+      }
+    }
+  }
+
+  private static final int STRIPES = 32;
+  private static final int BUCKETS = 10;
+  private static final long IDLE_EVICT_MILLIS = 10 * 60 * 1000L;
+
+  private final JavaPlugin plugin;
+  private final boolean enabled;
+  private final long windowMillis;
+  private final long bucketMillis;
+  private final int perPlayerLimit;
+  private final int perEventTypeLimit;
+  private final Map<String, Integer> eventTypeLimits;
+  private final Map<String, Policy> eventTypePolicies;
+  private final Policy defaultPolicy;
+  private final int maxDeferredPerKey;
+  private final Object[] stripes = new Object[STRIPES];
+  private final ConcurrentMap<String, SlidingWindow> windows = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ArrayDeque<Pending>> pending = new ConcurrentHashMap<>();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong deferred = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private BukkitTask drainTask;
+
+  public ActionRateLimiter(JavaPlugin plugin, FileConfiguration config) {
+    this.plugin = plugin;
+    this.enabled = config.getBoolean("action-rate-limit-enabled", false);
+    this.windowMillis = Math.max(1L, config.getLong("action-rate-limit-window-seconds", 60L)) * 1000L;
+    this.bucketMillis = Math.max(1L, windowMillis / BUCKETS);
+    this.perPlayerLimit = config.getInt("action-rate-limit-per-player", 10);
+    this.perEventTypeLimit = config.getInt("action-rate-limit-per-event-type", 300);
+    this.eventTypeLimits = readLimits(config.getConfigurationSection("action-rate-limit-event-types"));
+    this.eventTypePolicies = readPolicies(config.getConfigurationSection("action-rate-limit-policies"));
+    this.defaultPolicy = Policy.parse(config.getString("action-rate-limit-policy", "drop"));
+    this.maxDeferredPerKey = Math.max(1, config.getInt("action-rate-limit-max-deferred", 50));
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Object();
+    }
+  }
+
+  public void start() {
+    if (!enabled || drainTask != null) {
+      return;
+    }
+    final long periodTicks = Math.max(1L, bucketMillis / 50L);
+    drainTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::drain, periodTicks, periodTicks);
+  }
+
+  public void stop() {
+    if (drainTask != null) {
+      drainTask.cancel();
+      drainTask = null;
+    }
+    for (ArrayDeque<Pending> queue : pending.values()) {
+      synchronized (queue) {
+        for (Pending item : queue) {
+          item.result.complete(null);
+        }
+        queue.clear();
+      }
+    }
+    pending.clear();
+  }
+
+  public CompletableFuture<Void> submit(String playerKey, String eventType, Supplier<CompletableFuture<Void>> task) {
+    if (!enabled) {
+      return task.get();
+    }
+    final String type = normalize(eventType);
+    final String player = playerKey == null || playerKey.isBlank() ? null : playerKey.trim().toLowerCase(Locale.ROOT);
+    if (tryAcquire(player, type)) {
+      return task.get();
+    }
+    final Policy policy = eventTypePolicies.getOrDefault(type, defaultPolicy);
+    if (policy == Policy.DROP) {
+      if (dropped.incrementAndGet() % 100 == 1) {
+        plugin.getLogger().warning("Action rate limit exceeded for " + describe(player, type) + "; dropping (total " + dropped.get() + ").");
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+    final String key = type + "|" + (player == null ? "" : player);
+    final Pending item = new Pending(player, type, task);
+    Pending evicted = null;
+    while (true) {
+      final ArrayDeque<Pending> queue = pending.computeIfAbsent(key, ignored -> new ArrayDeque<>());
+      synchronized (queue) {
+        if (pending.get(key) != queue) {
+          continue;
+        }
+        evicted = enqueue(queue, item, policy);
+      }
+      break;
+    }
+    if (evicted != null) {
+      evicted.result.complete(null);
+    }
+    return item.result;
+  }
+
+  private Pending enqueue(ArrayDeque<Pending> queue, Pending item, Policy policy) {
+    Pending evicted = null;
+    if (policy == Policy.COALESCE) {
+      evicted = queue.pollLast();
+      if (evicted != null) {
+        coalesced.incrementAndGet();
+      }
+    } else if (queue.size() >= maxDeferredPerKey) {
+      evicted = queue.pollFirst();
+      dropped.incrementAndGet();
+    }
+    queue.addLast(item);
+    deferred.incrementAndGet();
+    return evicted;
+  }
+
+  public int getPendingCount() {
+    int total = 0;
+    for (ArrayDeque<Pending> queue : pending.values()) {
+      synchronized (queue) {
+        total += queue.size();
+      }
+    }
+    return total;
+  }
+
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  public long getDeferredCount() {
+    return deferred.get();
+  }
+
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  private void drain() {
+    final long now = System.currentTimeMillis();
+    final Iterator<Map.Entry<String, ArrayDeque<Pending>>> entries = pending.entrySet().iterator();
+    while (entries.hasNext()) {
+      final ArrayDeque<Pending> queue = entries.next().getValue();
+      final List<Pending> ready = new ArrayList<>();
+      synchronized (queue) {
+        while (!queue.isEmpty()) {
+          final Pending head = queue.peekFirst();
+          if (!tryAcquire(head.player, head.eventType)) {
+            break;
+          }
+          ready.add(queue.pollFirst());
+        }
+        if (queue.isEmpty()) {
+          entries.remove();
+        }
+      }
+      for (Pending item : ready) {
+        run(item);
+      }
+    }
+    windows.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+  }
+
+  private void run(Pending item) {
+    try {
+      item.task.get().whenComplete((ignored, err) -> item.result.complete(null));
+    } catch (Exception err) {
+      plugin.getLogger().warning("Deferred actions for " + describe(item.player, item.eventType) + " failed: " + err.getMessage());
+      item.result.complete(null);
+    }
+  }
+
+  private boolean tryAcquire(String player, String eventType) {
+    final long now = System.currentTimeMillis();
+    final int typeLimit = eventTypeLimits.getOrDefault(eventType, perEventTypeLimit);
+    final SlidingWindow typeWindow = typeLimit > 0 ? window("event:" + eventType) : null;
+    final SlidingWindow playerWindow = player != null && perPlayerLimit > 0 ? window("player:" + player) : null;
+    if (playerWindow != null && !acquire(playerWindow, perPlayerLimit, now)) {
+      return false;
+    }
+    if (typeWindow != null && !acquire(typeWindow, typeLimit, now)) {
+      if (playerWindow != null) {
+        synchronized (stripe(playerWindow)) {
+          playerWindow.refund(now);
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private boolean acquire(SlidingWindow window, int limit, long now) {
+    synchronized (stripe(window)) {
+      return window.tryAcquire(limit, now);
+    }
+  }
+
+  private SlidingWindow window(String key) {
+    return windows.computeIfAbsent(key, SlidingWindow::new);
+  }
+
+  private Object stripe(SlidingWindow window) {
+    return stripes[(window.key.hashCode() & 0x7fffffff) % STRIPES];
+  }
+
+  private static String describe(String player, String eventType) {
+    return player == null ? eventType : eventType + " (" + player + ")";
+  }
+
+  private static String normalize(String eventType) {
+    return eventType == null || eventType.isBlank() ? "unknown" : eventType.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static Map<String, Integer> readLimits(ConfigurationSection section) {
+    if (section == null) {
+      return Map.of();
+    }
+    final Map<String, Integer> limits = new HashMap<>();
+    for (String key : section.getKeys(true)) {
+      if (section.isInt(key)) {
+        limits.put(normalize(key), section.getInt(key));
+      }
+    }
+    return Map.copyOf(limits);
+  }
+
+  private static Map<String, Policy> readPolicies(ConfigurationSection section) {
+    if (section == null) {
+      return Map.of();
+    }
+    final Map<String, Policy> policies = new HashMap<>();
+    for (String key : section.getKeys(true)) {
+      if (section.isString(key)) {
+        policies.put(normalize(key), Policy.parse(section.getString(key)));
+      }
+    }
+    return Map.copyOf(policies);
+  }
+
+  private final class SlidingWindow {
+    private final String key;
+    private final int[] counts = new int[BUCKETS];
+    private final long[] epochs = new long[BUCKETS];
+    private long lastUsed;
+
+    private SlidingWindow(String key) {
+      this.key = key;
+    }
+
+    private boolean tryAcquire(int limit, long now) {
+      final long epoch = now / bucketMillis;
+      int total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        if (epoch - epochs[i] < BUCKETS) {
+          total += counts[i];
+        }
+      }
+      lastUsed = now;
+      if (total >= limit) {
+        return false;
+      }
+      final int slot = (int) (epoch % BUCKETS);
+      if (epochs[slot] != epoch) {
+        epochs[slot] = epoch;
+        counts[slot] = 0;
+      }
+      counts[slot]++;
+      return true;
+    }
+
+    private void refund(long now) {
+      final long epoch = now / bucketMillis;
+      final int slot = (int) (epoch % BUCKETS);
+      if (epochs[slot] == epoch && counts[slot] > 0) {
+        counts[slot]--;
+      }
+    }
+
+    private boolean isIdle(long now) {
+      synchronized (stripe(this)) {
+        return now - lastUsed > Math.max(windowMillis, IDLE_EVICT_MILLIS);
+      }
+    }
+  }
+
+  private static final class Pending {
+    private final String player;
+    private final String eventType;
+    private final Supplier<CompletableFuture<Void>> task;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    private Pending(String player, String eventType, Supplier<CompletableFuture<Void>> task) {
+      this.player = player;
+      this.eventType = eventType;
+      this.task = task;
+    }
+  }
+}
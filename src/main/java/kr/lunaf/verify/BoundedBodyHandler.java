@@ -0,0 +1,130 @@
+package kr.lunaf.verify;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+public class BoundedBodyHandler implements HttpResponse.BodyHandler<BoundedBodyHandler.BoundedBody> {
+  private final int maxBytes;
+  private final boolean digest;
+
+  public BoundedBodyHandler(int maxBytes, boolean digest) {
+    this.maxBytes = Math.max(0, maxBytes);
+    this.digest = digest;
+  }
+
+  @Override
+  public HttpResponse.BodySubscriber<BoundedBody> apply(HttpResponse.ResponseInfo responseInfo) {
+    return new BoundedSubscriber(maxBytes, digest);
+  }
+
+  public static final class BoundedBody {
+    private final byte[] head;
+    private final long totalBytes;
+    private final String sha256;
+
+    private BoundedBody(byte[] head, long totalBytes, String sha256) {
+      this.head = head;
+      this.totalBytes = totalBytes;
+      this.sha256 = sha256;
+    }
+
+    public String text() {
+      final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      final CharBuffer out = CharBuffer.allocate(head.length);
+      decoder.decode(ByteBuffer.wrap(head), out, false);
+      out.flip();
+      return out.toString();
+    }
+
+    public long getTotalBytes() {
+      return totalBytes;
+    }
+
+    public boolean isTruncated() {
+      return totalBytes > head.length;
+    }
+
+    public String getSha256() {
+      return sha256;
+    }
+  }
+
+  private static final class BoundedSubscriber implements HttpResponse.BodySubscriber<BoundedBody> {
+    private final CompletableFuture<BoundedBody> result = new CompletableFuture<>();
+    private final byte[] head;
+    private final MessageDigest messageDigest;
+    private int headLength;
+    private long totalBytes;
+
+    private BoundedSubscriber(int maxBytes, boolean digest) {
+      this.head = new byte[maxBytes];
+      MessageDigest created = null;
+      if (digest) {
+        try {
+          created = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException err) {
+          created = null;
+        }
+      }
+      this.messageDigest = created;
+    }
+
+    @Override
+    public CompletionStage<BoundedBody> getBody() {
+      return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      for (ByteBuffer buffer : buffers) {
+        final int remaining = buffer.remaining();
+        totalBytes += remaining;
+        if (messageDigest != null) {
+          messageDigest.update(buffer.duplicate());
+        }
+        final int copy = Math.min(remaining, head.length - headLength);
+        if (copy > 0) {
+          buffer.get(head, headLength, copy);
+          headLength += copy;
+        }
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      final byte[] kept = headLength == head.length ? head : Arrays.copyOf(head, headLength);
+      result.complete(new BoundedBody(kept, totalBytes, messageDigest == null ? null : toHex(messageDigest.digest())));
+    }
+
+    private static String toHex(byte[] data) {
+      final StringBuilder sb = new StringBuilder(data.length * 2);
+      for (byte b : data) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    }
+  }
+}
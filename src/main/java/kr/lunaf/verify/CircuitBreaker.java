@@ -0,0 +1,188 @@
+package kr.lunaf.verify;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+public class CircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  public enum Permit {
+    REJECTED,
+    NORMAL,
+    PROBE
+  }
+
+  private final Settings settings;
+  private final boolean[] window;
+  private int windowIndex;
+  private int windowCount;
+  private int windowFailures;
+  private State state = State.CLOSED;
+  private static final long MAX_RETRY_AFTER_MILLIS = 600_000L;
+
+  private long openedAtMillis;
+  private long openMillis;
+  private int probesInFlight;
+  private int probeSuccesses;
+  private long openCount;
+  private long rejectedCount;
+
+  public CircuitBreaker(Settings settings) {
+    this.settings = settings;
+    this.window = new boolean[settings.windowSize];
+  }
+
+  public synchronized Permit tryAcquire() {
+    if (state == State.OPEN) {
+      if (System.currentTimeMillis() - openedAtMillis < openMillis) {
+        rejectedCount++;
+        return Permit.REJECTED;
+      }
+      state = State.HALF_OPEN;
+      probesInFlight = 0;
+      probeSuccesses = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesInFlight >= settings.halfOpenProbes) {
+        rejectedCount++;
+        return Permit.REJECTED;
+      }
+      probesInFlight++;
+      return Permit.PROBE;
+    }
+    return Permit.NORMAL;
+  }
+
+  public synchronized void onResult(Permit permit, boolean success) {
+    if (permit == Permit.PROBE) {
+      if (state != State.HALF_OPEN) {
+        return;
+      }
+      probesInFlight = Math.max(0, probesInFlight - 1);
+      if (!success) {
+        open();
+      } else if (++probeSuccesses >= settings.halfOpenProbes) {
+        close();
+      }
+      return;
+    }
+    if (permit != Permit.NORMAL || state != State.CLOSED) {
+      return;
+    }
+    if (windowCount == window.length) {
+      if (!window[windowIndex]) {
+        windowFailures--;
+      }
+    } else {
+      windowCount++;
+    }
+    window[windowIndex] = success;
+    if (!success) {
+      windowFailures++;
+    }
+    windowIndex = (windowIndex + 1) % window.length;
+    if (windowCount >= settings.minCalls && windowFailures * 100 >= settings.failureRatePercent * windowCount) {
+      open();
+    }
+  }
+
+  public synchronized void onRateLimited(Permit permit, long retryAfterMillis) {
+    if (permit == Permit.REJECTED) {
+      return;
+    }
+    if (retryAfterMillis <= 0L) {
+      onResult(permit, false);
+      return;
+    }
+    if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+      probesInFlight = Math.max(0, probesInFlight - 1);
+    }
+    final long until = System.currentTimeMillis() + Math.min(MAX_RETRY_AFTER_MILLIS, retryAfterMillis);
+    if (state == State.OPEN && openedAtMillis + openMillis >= until) {
+      return;
+    }
+    open();
+    openMillis = until - openedAtMillis;
+  }
+
+  public static long parseRetryAfterMillis(String value) {
+    if (value == null || value.isBlank()) {
+      return -1L;
+    }
+    final String trimmed = value.trim();
+    try {
+      return Math.max(0L, Long.parseLong(trimmed)) * 1000L;
+    } catch (NumberFormatException err) {
+      // not delta-seconds
+    }
+    try {
+      final ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+      return Math.max(0L, at.toInstant().toEpochMilli() - System.currentTimeMillis());
+    } catch (DateTimeParseException err) {
+      return -1L;
+    }
+  }
+
+  public synchronized void release(Permit permit) {
+    if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+      probesInFlight = Math.max(0, probesInFlight - 1);
+    }
+  }
+
+  public synchronized State getState() {
+    if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMillis) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  public synchronized long getOpenCount() {
+    return openCount;
+  }
+
+  public synchronized long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAtMillis = System.currentTimeMillis();
+    openMillis = settings.openMillis;
+    openCount++;
+    resetWindow();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    windowIndex = 0;
+    windowCount = 0;
+    windowFailures = 0;
+    probesInFlight = 0;
+    probeSuccesses = 0;
+  }
+
+  public static final class Settings {
+    private final int windowSize;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    public Settings(int windowSize, int minCalls, int failureRatePercent, long openMillis, int halfOpenProbes) {
+      this.windowSize = Math.max(1, windowSize);
+      this.minCalls = Math.max(1, Math.min(this.windowSize, minCalls));
+      this.failureRatePercent = Math.max(1, Math.min(100, failureRatePercent));
+      this.openMillis = Math.max(1000L, openMillis);
+      this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package kr.lunaf.verify;
+
+import java.util.concurrent.RejectedExecutionException;
+
+public class CircuitOpenException extends RejectedExecutionException {
+  public CircuitOpenException(String host) {
+    super("circuit open for " + host);
+  }
+}
@@ -0,0 +1,444 @@
+package kr.lunaf.verify;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+public final class CompactSyncStore {
+  private static final long NO_DISCORD_ID = Long.MIN_VALUE;
+  private static final byte TIME_NONE = 0;
+  private static final byte TIME_SECONDS = 1;
+  private static final byte TIME_MILLIS = 2;
+  private static final DateTimeFormatter MILLIS_FORMAT = DateTimeFormatter
+    .ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSS'Z'")
+    .withZone(ZoneOffset.UTC);
+  private static final CompactSyncStore EMPTY = new Builder().build();
+
+  private final long[] uuidMsb;
+  private final long[] uuidLsb;
+  private final long[] discordIds;
+  private final String[] igns;
+  private final int[] guilds;
+  private final String[] guildDictionary;
+  private final Map<String, Integer> guildIndex;
+  private final long[] occurredAt;
+  private final long[] verifiedAt;
+  private final byte[] timeFormats;
+  private final int[] uuidTable;
+  private final long[] discordTableKeys;
+  private final int[] discordTable;
+  private final int[] ignTable;
+  private final int[] guildOffsets;
+  private final int[] guildRows;
+  private final int size;
+
+  private CompactSyncStore(Builder builder) {
+    final int rows = builder.rows;
+    this.uuidMsb = Arrays.copyOf(builder.uuidMsb, rows);
+    this.uuidLsb = Arrays.copyOf(builder.uuidLsb, rows);
+    this.discordIds = Arrays.copyOf(builder.discordIds, rows);
+    this.igns = Arrays.copyOf(builder.igns, rows);
+    this.guilds = Arrays.copyOf(builder.guilds, rows);
+    this.guildDictionary = builder.guildDictionary.toArray(new String[0]);
+    this.guildIndex = Map.copyOf(builder.guildIndex);
+    this.occurredAt = Arrays.copyOf(builder.occurredAt, rows);
+    this.verifiedAt = Arrays.copyOf(builder.verifiedAt, rows);
+    this.timeFormats = Arrays.copyOf(builder.timeFormats, rows);
+
+    this.uuidTable = new int[tableSize(rows)];
+    int live = 0;
+    for (int row = 0; row < rows; row++) {
+      // A later irregular entry for the same UUID replaces this row; the cache keeps it in its overlay.
+      if (!builder.irregular.isEmpty() && builder.irregular.containsKey(new UUID(uuidMsb[row], uuidLsb[row]))) {
+        continue;
+      }
+      final int mask = uuidTable.length - 1;
+      int slot = mix(uuidMsb[row], uuidLsb[row]) & mask;
+      while (true) {
+        final int existing = uuidTable[slot] - 1;
+        if (existing < 0) {
+          uuidTable[slot] = row + 1;
+          live++;
+          break;
+        }
+        if (uuidMsb[existing] == uuidMsb[row] && uuidLsb[existing] == uuidLsb[row]) {
+          uuidTable[slot] = row + 1;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+    this.size = live;
+
+    this.discordTableKeys = new long[tableSize(live)];
+    this.discordTable = new int[discordTableKeys.length];
+    this.ignTable = new int[tableSize(live)];
+    final int[] guildCounts = new int[guildDictionary.length + 1];
+    for (int slot = 0; slot < uuidTable.length; slot++) {
+      final int row = uuidTable[slot] - 1;
+      if (row < 0) {
+        continue;
+      }
+      if (discordIds[row] != NO_DISCORD_ID) {
+        indexDiscordId(row);
+      }
+      if (igns[row] != null) {
+        indexIgn(row);
+      }
+      if (guilds[row] >= 0) {
+        guildCounts[guilds[row] + 1]++;
+      }
+    }
+    for (int i = 1; i < guildCounts.length; i++) {
+      guildCounts[i] += guildCounts[i - 1];
+    }
+    this.guildOffsets = guildCounts;
+    this.guildRows = new int[guildCounts[guildCounts.length - 1]];
+    final int[] cursor = Arrays.copyOf(guildCounts, guildCounts.length);
+    for (int slot = 0; slot < uuidTable.length; slot++) {
+      final int row = uuidTable[slot] - 1;
+      if (row >= 0 && guilds[row] >= 0) {
+        guildRows[cursor[guilds[row]]++] = row;
+      }
+    }
+  }
+
+  public static CompactSyncStore empty() {
+    return EMPTY;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int find(String uuid) {
+    if (uuid == null) {
+      return -1;
+    }
+    try {
+      return find(UUID.fromString(uuid));
+    } catch (IllegalArgumentException err) {
+      return -1;
+    }
+  }
+
+  public int find(UUID uuid) {
+    return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+  }
+
+  public int find(long msb, long lsb) {
+    final int mask = uuidTable.length - 1;
+    int slot = mix(msb, lsb) & mask;
+    while (true) {
+      final int row = uuidTable[slot] - 1;
+      if (row < 0) {
+        return -1;
+      }
+      if (uuidMsb[row] == msb && uuidLsb[row] == lsb) {
+        return row;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  public int findByDiscordId(String discordUserId) {
+    final long key = parseDiscordId(discordUserId);
+    if (key == NO_DISCORD_ID) {
+      return -1;
+    }
+    final int mask = discordTable.length - 1;
+    int slot = mix(key, 0L) & mask;
+    while (true) {
+      final int row = discordTable[slot] - 1;
+      if (row < 0) {
+        return -1;
+      }
+      if (discordTableKeys[slot] == key) {
+        return row;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  public int findByIgn(String ign) {
+    if (ign == null || ign.isBlank()) {
+      return -1;
+    }
+    final String key = ign.trim().toLowerCase(Locale.ROOT);
+    final int mask = ignTable.length - 1;
+    int slot = key.hashCode() & mask;
+    while (true) {
+      final int row = ignTable[slot] - 1;
+      if (row < 0) {
+        return -1;
+      }
+      if (igns[row].trim().equalsIgnoreCase(key)) {
+        return row;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  public int[] findByGuild(String guildId) {
+    final Integer index = guildId == null ? null : guildIndex.get(guildId);
+    if (index == null) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(guildRows, guildOffsets[index], guildOffsets[index + 1]);
+  }
+
+  public String uuid(int row) {
+    return new UUID(uuidMsb[row], uuidLsb[row]).toString();
+  }
+
+  public UUID uuidKey(int row) {
+    return new UUID(uuidMsb[row], uuidLsb[row]);
+  }
+
+  // Built on every call; rows are only materialised for the caller that asks.
+  public DiscordSyncEntry entry(int row) {
+    return new DiscordSyncEntry(
+      uuid(row),
+      igns[row],
+      discordIds[row] == NO_DISCORD_ID ? null : Long.toString(discordIds[row]),
+      guilds[row] < 0 ? null : guildDictionary[guilds[row]],
+      formatTime(occurredAt[row], (byte) (timeFormats[row] & 0x3)),
+      formatTime(verifiedAt[row], (byte) ((timeFormats[row] >> 2) & 0x3))
+    );
+  }
+
+  public int[] rows() {
+    final int[] rows = new int[size];
+    int count = 0;
+    for (int slot = 0; slot < uuidTable.length; slot++) {
+      if (uuidTable[slot] > 0) {
+        rows[count++] = uuidTable[slot] - 1;
+      }
+    }
+    return rows;
+  }
+
+  private void indexDiscordId(int row) {
+    final long key = discordIds[row];
+    final int mask = discordTable.length - 1;
+    int slot = mix(key, 0L) & mask;
+    while (discordTable[slot] != 0 && discordTableKeys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    discordTableKeys[slot] = key;
+    discordTable[slot] = row + 1;
+  }
+
+  private void indexIgn(int row) {
+    final String key = igns[row].trim().toLowerCase(Locale.ROOT);
+    final int mask = ignTable.length - 1;
+    int slot = key.hashCode() & mask;
+    while (ignTable[slot] != 0 && !igns[ignTable[slot] - 1].trim().equalsIgnoreCase(key)) {
+      slot = (slot + 1) & mask;
+    }
+    ignTable[slot] = row + 1;
+  }
+
+  private static int tableSize(int entries) {
+    int capacity = 16;
+    while (capacity < entries * 2) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int mix(long msb, long lsb) {
+    long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private static long parseDiscordId(String value) {
+    if (value == null || value.isEmpty() || value.length() > 19) {
+      return NO_DISCORD_ID;
+    }
+    try {
+      final long parsed = Long.parseLong(value);
+      return parsed >= 0 && Long.toString(parsed).equals(value) ? parsed : NO_DISCORD_ID;
+    } catch (NumberFormatException err) {
+      return NO_DISCORD_ID;
+    }
+  }
+
+  private static long parseTime(String value, byte format) {
+    return format == TIME_NONE ? 0L : Instant.parse(value).toEpochMilli();
+  }
+
+  private static byte timeFormat(String value) {
+    if (value == null) {
+      return TIME_NONE;
+    }
+    try {
+      final Instant instant = Instant.parse(value);
+      if (instant.getNano() == 0 && instant.toString().equals(value)) {
+        return TIME_SECONDS;
+      }
+      if (instant.getNano() % 1_000_000 == 0 && MILLIS_FORMAT.format(instant).equals(value)) {
+        return TIME_MILLIS;
+      }
+    } catch (DateTimeParseException err) {
+      // not canonical
+    }
+    return -1;
+  }
+
+  private static String formatTime(long epochMillis, byte format) {
+    if (format == TIME_SECONDS) {
+      return Instant.ofEpochMilli(epochMillis).toString();
+    }
+    if (format == TIME_MILLIS) {
+      return MILLIS_FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+    return null;
+  }
+
+  public static final class Builder {
+    private long[] uuidMsb = new long[16];
+    private long[] uuidLsb = new long[16];
+    private long[] discordIds = new long[16];
+    private String[] igns = new String[16];
+    private int[] guilds = new int[16];
+    private long[] occurredAt = new long[16];
+    private long[] verifiedAt = new long[16];
+    private byte[] timeFormats = new byte[16];
+    private final List<String> guildDictionary = new ArrayList<>();
+    private final Map<String, Integer> guildIndex = new HashMap<>();
+    private final Map<UUID, DiscordSyncEntry> irregular = new LinkedHashMap<>();
+    private int rows;
+    private int added;
+
+    public Builder add(DiscordSyncEntry entry) {
+      if (entry == null || entry.getMcUuid() == null) {
+        return this;
+      }
+      added++;
+      final UUID uuid;
+      try {
+        uuid = UUID.fromString(entry.getMcUuid());
+      } catch (IllegalArgumentException err) {
+        return this;
+      }
+      final long discordId = parseDiscordId(entry.getDiscordUserId());
+      final byte occurredFormat = timeFormat(entry.getOccurredAt());
+      final byte verifiedFormat = timeFormat(entry.getVerifiedAt());
+      if (!uuid.toString().equals(entry.getMcUuid())
+        || (discordId == NO_DISCORD_ID && entry.getDiscordUserId() != null)
+        || occurredFormat < 0
+        || verifiedFormat < 0) {
+        irregular.put(uuid, entry);
+        return this;
+      }
+      appendRow(
+        uuid.getMostSignificantBits(),
+        uuid.getLeastSignificantBits(),
+        discordId,
+        entry.getMcIgn(),
+        entry.getGuildId(),
+        parseTime(entry.getOccurredAt(), occurredFormat),
+        parseTime(entry.getVerifiedAt(), verifiedFormat),
+        (byte) (occurredFormat | (verifiedFormat << 2))
+      );
+      return this;
+    }
+
+    private void appendRow(
+      long msb,
+      long lsb,
+      long discordId,
+      String ign,
+      String guildId,
+      long occurred,
+      long verified,
+      byte formats
+    ) {
+      if (!irregular.isEmpty()) {
+        irregular.remove(new UUID(msb, lsb));
+      }
+      ensureCapacity(rows + 1);
+      uuidMsb[rows] = msb;
+      uuidLsb[rows] = lsb;
+      discordIds[rows] = discordId;
+      igns[rows] = ign;
+      guilds[rows] = internGuild(guildId);
+      occurredAt[rows] = occurred;
+      verifiedAt[rows] = verified;
+      timeFormats[rows] = formats;
+      rows++;
+    }
+
+    public Builder addAll(Builder other) {
+      for (int row = 0; row < other.rows; row++) {
+        appendRow(
+          other.uuidMsb[row],
+          other.uuidLsb[row],
+          other.discordIds[row],
+          other.igns[row],
+          other.guilds[row] < 0 ? null : other.guildDictionary.get(other.guilds[row]),
+          other.occurredAt[row],
+          other.verifiedAt[row],
+          other.timeFormats[row]
+        );
+      }
+      irregular.putAll(other.irregular);
+      added += other.added;
+      return this;
+    }
+
+    public int size() {
+      return added;
+    }
+
+    public List<DiscordSyncEntry> getIrregular() {
+      return new ArrayList<>(irregular.values());
+    }
+
+    public CompactSyncStore build() {
+      return new CompactSyncStore(this);
+    }
+
+    private int internGuild(String guildId) {
+      if (guildId == null) {
+        return -1;
+      }
+      final Integer existing = guildIndex.get(guildId);
+      if (existing != null) {
+        return existing;
+      }
+      final int index = guildDictionary.size();
+      guildDictionary.add(guildId);
+      guildIndex.put(guildId, index);
+      return index;
+    }
+
+    private void ensureCapacity(int needed) {
+      if (needed <= uuidMsb.length) {
+        return;
+      }
+      final int capacity = Math.max(needed, uuidMsb.length + (uuidMsb.length >> 1));
+      uuidMsb = Arrays.copyOf(uuidMsb, capacity);
+      uuidLsb = Arrays.copyOf(uuidLsb, capacity);
+      discordIds = Arrays.copyOf(discordIds, capacity);
+      igns = Arrays.copyOf(igns, capacity);
+      guilds = Arrays.copyOf(guilds, capacity);
+      occurredAt = Arrays.copyOf(occurredAt, capacity);
+      verifiedAt = Arrays.copyOf(verifiedAt, capacity);
+      timeFormats = Arrays.copyOf(timeFormats, capacity);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package kr.lunaf.verify;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public class DeferredActionQueue implements Listener {
+  public static final String PLAYER_COMMAND = "player_command";
+  public static final String PLAYER_MESSAGE = "player_message";
+
+  private final Gson gson = new Gson();
+  private final JavaPlugin plugin;
+  private final File file;
+  private final long ttlMillis;
+  private final int maxPerPlayer;
+  private final int maxTotal;
+  private final long flushBudgetNanos;
+  private final Map<UUID, ArrayDeque<PendingAction>> pending = new HashMap<>();
+  private final Object fileLock = new Object();
+  private int size;
+  private boolean saveScheduled;
+
+  public DeferredActionQueue(
+    JavaPlugin plugin,
+    File file,
+    long ttlSeconds,
+    int maxPerPlayer,
+    int maxTotal,
+    long flushBudgetMillis
+  ) {
+    this.plugin = plugin;
+    this.file = file;
+    this.ttlMillis = ttlSeconds <= 0 ? 0 : ttlSeconds * 1000L;
+    this.maxPerPlayer = Math.max(1, maxPerPlayer);
+    this.maxTotal = Math.max(1, maxTotal);
+    this.flushBudgetNanos = Math.max(1L, flushBudgetMillis) * 1_000_000L;
+  }
+
+  public synchronized void load() {
+    if (file == null || !file.exists()) {
+      return;
+    }
+    try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      final Type type = new TypeToken<Map<String, List<PendingAction>>>() {}.getType();
+      final Map<String, List<PendingAction>> loaded = gson.fromJson(reader, type);
+      if (loaded == null) {
+        return;
+      }
+      final long now = System.currentTimeMillis();
+      int dropped = 0;
+      for (Map.Entry<String, List<PendingAction>> entry : loaded.entrySet()) {
+        final UUID uuid = parseUuid(entry.getKey());
+        if (uuid == null || entry.getValue() == null) {
+          continue;
+        }
+        for (PendingAction action : entry.getValue()) {
+          if (action == null || action.type == null || action.value == null || isExpired(action, now)) {
+            continue;
+          }
+          if (size >= maxTotal) {
+            dropped++;
+            continue;
+          }
+          add(uuid, action);
+        }
+      }
+      if (dropped > 0) {
+        plugin.getLogger().warning("Deferred action queue full; dropped " + dropped + " restored actions");
+      }
+    } catch (Exception err) {
+      plugin.getLogger().warning("Failed to load deferred actions: " + err.getMessage());
+    }
+  }
+
+  public void save() {
+    if (file == null) {
+      return;
+    }
+    synchronized (fileLock) {
+      final Map<String, List<PendingAction>> snapshot = new HashMap<>();
+      synchronized (this) {
+        saveScheduled = false;
+        for (Map.Entry<UUID, ArrayDeque<PendingAction>> entry : pending.entrySet()) {
+          snapshot.put(entry.getKey().toString(), new ArrayList<>(entry.getValue()));
+        }
+      }
+      final Path target = file.toPath();
+      final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+      try {
+        Files.createDirectories(target.getParent());
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+          gson.toJson(snapshot, writer);
+        }
+        try {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException err) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (IOException err) {
+        plugin.getLogger().warning("Failed to save deferred actions: " + err.getMessage());
+      }
+    }
+  }
+
+  private synchronized void scheduleSave() {
+    if (file == null || saveScheduled || !plugin.isEnabled()) {
+      return;
+    }
+    saveScheduled = true;
+    Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::save, 20L);
+  }
+
+  public boolean enqueue(UUID uuid, String type, String value) {
+    if (uuid == null || type == null || value == null) {
+      return false;
+    }
+    synchronized (this) {
+      if (size >= maxTotal) {
+        prune();
+      }
+      if (size >= maxTotal) {
+        plugin.getLogger().warning("Deferred action queue full; dropping " + type + " for " + uuid);
+        return false;
+      }
+      add(uuid, new PendingAction(type, value, System.currentTimeMillis()));
+    }
+    scheduleSave();
+    return true;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoin(PlayerJoinEvent event) {
+    final Player player = event.getPlayer();
+    if (player == null || !hasPending(player.getUniqueId())) {
+      return;
+    }
+    Bukkit.getScheduler().runTask(plugin, () -> flush(player));
+  }
+
+  private void flush(Player player) {
+    if (player == null || !player.isOnline()) {
+      return;
+    }
+    final UUID uuid = player.getUniqueId();
+    final long deadline = System.nanoTime() + flushBudgetNanos;
+    int executed = 0;
+    while (System.nanoTime() < deadline) {
+      final PendingAction action = poll(uuid);
+      if (action == null) {
+        break;
+      }
+      execute(player, action);
+      executed++;
+    }
+    if (hasPending(uuid)) {
+      Bukkit.getScheduler().runTaskLater(plugin, () -> flush(player), 1L);
+    }
+    if (executed > 0) {
+      scheduleSave();
+    }
+  }
+
+  private void execute(Player player, PendingAction action) {
+    if (PLAYER_COMMAND.equals(action.type)) {
+      player.performCommand(action.value);
+    } else if (PLAYER_MESSAGE.equals(action.type)) {
+      player.sendMessage(action.value);
+    }
+  }
+
+  private synchronized boolean hasPending(UUID uuid) {
+    return uuid != null && pending.containsKey(uuid);
+  }
+
+  private synchronized PendingAction poll(UUID uuid) {
+    final ArrayDeque<PendingAction> queue = pending.get(uuid);
+    if (queue == null) {
+      return null;
+    }
+    PendingAction next = null;
+    while (next == null && !queue.isEmpty()) {
+      final PendingAction candidate = queue.pollFirst();
+      size--;
+      if (!isExpired(candidate, System.currentTimeMillis())) {
+        next = candidate;
+      }
+    }
+    if (queue.isEmpty()) {
+      pending.remove(uuid);
+    }
+    return next;
+  }
+
+  private void add(UUID uuid, PendingAction action) {
+    final ArrayDeque<PendingAction> queue = pending.computeIfAbsent(uuid, key -> new ArrayDeque<>());
+    if (queue.size() >= maxPerPlayer) {
+      queue.pollFirst();
+      size--;
+    }
+    queue.addLast(action);
+    size++;
+  }
+
+  private void prune() {
+    if (ttlMillis <= 0) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    final Iterator<Map.Entry<UUID, ArrayDeque<PendingAction>>> it = pending.entrySet().iterator();
+    while (it.hasNext()) {
+      final ArrayDeque<PendingAction> queue = it.next().getValue();
+      final int before = queue.size();
+      queue.removeIf(action -> isExpired(action, now));
+      size -= before - queue.size();
+      if (queue.isEmpty()) {
+        it.remove();
+      }
+    }
+  }
+
+  private boolean isExpired(PendingAction action, long now) {
+    return ttlMillis > 0 && now - action.createdAt > ttlMillis;
+  }
+
+  private static UUID parseUuid(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(raw.trim());
+    } catch (IllegalArgumentException err) {
+      return null;
+    }
+  }
+
+  private static final class PendingAction {
+    private String type;
+    private String value;
+    private long createdAt;
+
+    private PendingAction(String type, String value, long createdAt) {
+      this.type = type;
+      this.value = value;
+      this.createdAt = createdAt;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package kr.lunaf.verify;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import kr.lunaf.verify.api.LunaVerifierPayload;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+public class DelayedActionScheduler {
+  private static final long MILLIS_PER_TICK = 50L;
+  private static final Set<String> MAIN_THREAD_TYPES = Set.of(
+    "console_command",
+    "server_command",
+    "player_command",
+    "player_message",
+    "broadcast"
+  );
+
+  @FunctionalInterface
+  public interface Dispatcher {
+    CompletableFuture<Boolean> dispatch(JsonObject action, TokenReplacer tokens, String eventType, LunaVerifierPayload payload);
+  }
+
+  private final Gson gson = new Gson();
+  private final JavaPlugin plugin;
+  private final Dispatcher dispatcher;
+  private final Executor asyncExecutor;
+  private final File file;
+  private final int maxPending;
+  private final long saveIntervalTicks;
+  private final TimingWheel<DelayedAction> wheel;
+  private volatile boolean dirty;
+  private BukkitTask tickTask;
+  private BukkitTask saveTask;
+
+  public DelayedActionScheduler(
+    JavaPlugin plugin,
+    Dispatcher dispatcher,
+    Executor asyncExecutor,
+    File file,
+    int wheelSize,
+    int maxPending,
+    long saveIntervalSeconds
+  ) {
+    this.plugin = plugin;
+    this.dispatcher = dispatcher;
+    this.asyncExecutor = asyncExecutor;
+    this.file = file;
+    this.maxPending = Math.max(1, maxPending);
+    this.saveIntervalTicks = Math.max(1L, saveIntervalSeconds) * 20L;
+    this.wheel = new TimingWheel<>(wheelSize);
+  }
+
+  public void start() {
+    load();
+    tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    if (file != null) {
+      saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+        if (dirty) {
+          save();
+        }
+      }, saveIntervalTicks, saveIntervalTicks);
+    }
+  }
+
+  public void stop() {
+    if (tickTask != null) {
+      tickTask.cancel();
+      tickTask = null;
+    }
+    if (saveTask != null) {
+      saveTask.cancel();
+      saveTask = null;
+    }
+    save();
+    for (TimingWheel.Timeout<DelayedAction> timeout : wheel.snapshot()) {
+      wheel.cancel(timeout);
+      timeout.getValue().result.complete(false);
+    }
+  }
+
+  public CompletableFuture<Boolean> schedule(
+    JsonObject action,
+    long delayTicks,
+    TokenReplacer tokens,
+    String eventType,
+    LunaVerifierPayload payload
+  ) {
+    if (wheel.size() >= maxPending) {
+      plugin.getLogger().warning("Delayed action queue full; dropping " + getString(action, "type") + " for " + eventType);
+      return CompletableFuture.completedFuture(false);
+    }
+    final DelayedAction delayed = new DelayedAction(
+      action,
+      tokens,
+      eventType,
+      payload,
+      System.currentTimeMillis() + delayTicks * MILLIS_PER_TICK
+    );
+    wheel.schedule(delayed, delayTicks);
+    dirty = true;
+    return delayed.result;
+  }
+
+  public int size() {
+    return wheel.size();
+  }
+
+  private void tick() {
+    final List<DelayedAction> expired = wheel.advance();
+    if (expired.isEmpty()) {
+      return;
+    }
+    dirty = true;
+    for (DelayedAction delayed : expired) {
+      final String type = getString(delayed.action, "type");
+      if (type != null && MAIN_THREAD_TYPES.contains(type.trim().toLowerCase(Locale.ROOT))) {
+        dispatch(delayed);
+        continue;
+      }
+      // HTTP requests and custom handlers may block (DNS, inline handlers), so keep them off the tick.
+      try {
+        asyncExecutor.execute(() -> dispatch(delayed));
+      } catch (Exception err) {
+        plugin.getLogger().warning("Delayed action " + type + " could not be started: " + err.getMessage());
+        delayed.result.complete(false);
+      }
+    }
+  }
+
+  private void dispatch(DelayedAction delayed) {
+    try {
+      dispatcher.dispatch(delayed.action, delayed.tokens, delayed.eventType, delayed.payload)
+        .whenComplete((ok, err) -> delayed.result.complete(err == null && Boolean.TRUE.equals(ok)));
+    } catch (Exception err) {
+      plugin.getLogger().warning("Delayed action " + getString(delayed.action, "type") + " failed: " + err.getMessage());
+      delayed.result.complete(false);
+    }
+  }
+
+  private void load() {
+    if (file == null || !file.exists()) {
+      return;
+    }
+    final List<StoredAction> stored;
+    try (FileReader reader = new FileReader(file)) {
+      final Type type = new TypeToken<List<StoredAction>>() {}.getType();
+      stored = gson.fromJson(reader, type);
+    } catch (Exception err) {
+      plugin.getLogger().warning("Failed to load delayed actions: " + err.getMessage());
+      return;
+    }
+    if (stored == null) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    int restored = 0;
+    for (StoredAction item : stored) {
+      if (item == null || item.action == null || restored >= maxPending) {
+        continue;
+      }
+      try {
+        final JsonObject action = JsonParser.parseString(item.action).getAsJsonObject();
+        final JsonObject rawPayload = item.payload == null ? null : JsonParser.parseString(item.payload).getAsJsonObject();
+        final long delayTicks = Math.max(1L, (item.dueAt - now) / MILLIS_PER_TICK);
+        wheel.schedule(new DelayedAction(
+          action,
+          new TokenReplacer(item.tokens),
+          item.eventType,
+          LunaVerifierPayload.fromJson(rawPayload),
+          item.dueAt
+        ), delayTicks);
+        restored++;
+      } catch (Exception err) {
+        // ignore
+      }
+    }
+    if (restored > 0) {
+      plugin.getLogger().info("Restored " + restored + " delayed action(s); actions that waited on them via \"after\" are not restored.");
+    }
+  }
+
+  // Only the delayed action itself is stored. Plan steps waiting on it through "after" live in
+  // memory and are skipped when the server stops before it runs.
+  private synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    dirty = false;
+    final List<StoredAction> snapshot = new ArrayList<>();
+    for (TimingWheel.Timeout<DelayedAction> timeout : wheel.snapshot()) {
+      final DelayedAction delayed = timeout.getValue();
+      final JsonObject rawPayload = delayed.payload == null ? null : delayed.payload.getRawPayload();
+      snapshot.add(new StoredAction(
+        delayed.action.toString(),
+        delayed.tokens.toMap(),
+        delayed.eventType,
+        rawPayload == null ? null : rawPayload.toString(),
+        delayed.dueAt
+      ));
+    }
+    final Path target = file.toPath();
+    final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(target.getParent());
+      try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        gson.toJson(snapshot, writer);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException err) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException err) {
+      dirty = true;
+      plugin.getLogger().warning("Failed to save delayed actions: " + err.getMessage());
+    }
+  }
+
+  private static String getString(JsonObject obj, String key) {
+    if (obj == null || !obj.has(key)) {
+      return null;
+    }
+    try {
+      return obj.get(key).getAsString();
+    } catch (Exception err) {
+      return null;
+    }
+  }
+
+  private static final class DelayedAction {
+    private final JsonObject action;
+    private final TokenReplacer tokens;
+    private final String eventType;
+    private final LunaVerifierPayload payload;
+    private final long dueAt;
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    private DelayedAction(JsonObject action, TokenReplacer tokens, String eventType, LunaVerifierPayload payload, long dueAt) {
+      this.action = action;
+      this.tokens = tokens;
+      this.eventType = eventType;
+      this.payload = payload;
+      this.dueAt = dueAt;
+    }
+  }
+
+  private static final class StoredAction {
+    private String action;
+    private Map<String, String> tokens;
+    private String eventType;
+    private String payload;
+    private long dueAt;
+
+    private StoredAction(String action, Map<String, String> tokens, String eventType, String payload, long dueAt) {
+      this.action = action;
+      this.tokens = tokens;
+      this.eventType = eventType;
+      this.payload = payload;
+      this.dueAt = dueAt;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package kr.lunaf.verify;
+
+import java.util.List;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+public class DiscordSyncBatchEvent extends Event {
+  private static final HandlerList HANDLERS = new HandlerList();
+  private final List<DiscordSyncChange> changes;
+  private final boolean fullSnapshot;
+
+  public DiscordSyncBatchEvent(List<DiscordSyncChange> changes, boolean fullSnapshot) {
+    super();
+    this.changes = List.copyOf(changes);
+    this.fullSnapshot = fullSnapshot;
+  }
+
+  public List<DiscordSyncChange> getChanges() {
+    return changes;
+  }
+
+  public boolean isFullSnapshot() {
+    return fullSnapshot;
+  }
+
+  public int getCount(DiscordSyncAction action) {
+    int count = 0;
+    for (DiscordSyncChange change : changes) {
+      if (change.getAction() == action) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+}
@@ -0,0 +1,470 @@
+package kr.lunaf.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class DiscordSyncCache {
+  private static final int MIN_COMPACT_THRESHOLD = 4096;
+  private static final int MAX_UNLOCKED_DIFFS = 3;
+
+  private final Object writeLock = new Object();
+  private volatile State state = new State(CompactSyncStore.empty());
+  private volatile long version;
+  private volatile DiscordSyncSnapshot snapshot = DiscordSyncSnapshot.EMPTY;
+  private final AtomicBoolean compacting = new AtomicBoolean();
+
+  public DiscordSyncEntry get(String uuid) {
+    return get(parseUuid(uuid));
+  }
+
+  public DiscordSyncEntry get(UUID uuid) {
+    return uuid == null ? null : state.get(uuid);
+  }
+
+  public boolean contains(String uuid) {
+    return contains(parseUuid(uuid));
+  }
+
+  public boolean contains(UUID uuid) {
+    return uuid != null && state.contains(uuid);
+  }
+
+  public DiscordSyncEntry getByDiscordId(String discordUserId) {
+    if (discordUserId == null) {
+      return null;
+    }
+    final State current = state;
+    final DiscordSyncEntry overlay = current.overlay.getByDiscordId(discordUserId);
+    if (overlay != null) {
+      return overlay;
+    }
+    return current.visible(current.base.findByDiscordId(discordUserId));
+  }
+
+  public DiscordSyncEntry getByIgn(String ign) {
+    if (ign == null) {
+      return null;
+    }
+    final State current = state;
+    final DiscordSyncEntry overlay = current.overlay.getByIgn(ign);
+    if (overlay != null) {
+      return overlay;
+    }
+    return current.visible(current.base.findByIgn(ign));
+  }
+
+  public List<DiscordSyncEntry> getByGuild(String guildId) {
+    if (guildId == null) {
+      return List.of();
+    }
+    final State current = state;
+    final List<DiscordSyncEntry> entries = new ArrayList<>(current.overlay.getByGuild(guildId));
+    for (int row : current.base.findByGuild(guildId)) {
+      final DiscordSyncEntry entry = current.visible(row);
+      if (entry != null) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  public List<DiscordSyncEntry> values() {
+    return snapshot().getEntries();
+  }
+
+  public DiscordSyncSnapshot snapshot() {
+    final DiscordSyncSnapshot current = snapshot;
+    if (current.getVersion() == version) {
+      return current;
+    }
+    synchronized (writeLock) {
+      if (snapshot.getVersion() != version) {
+        snapshot = state.snapshot(version);
+      }
+      return snapshot;
+    }
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void forEach(Consumer<DiscordSyncEntry> consumer) {
+    state.forEach(consumer);
+  }
+
+  public int size() {
+    return state.size();
+  }
+
+  public List<DiscordSyncChange> replaceAll(CompactSyncStore.Builder next, boolean computeChanges) {
+    final State rebuilt = new State(next.build());
+    rebuilt.seed(next.getIrregular());
+    if (!computeChanges) {
+      synchronized (writeLock) {
+        state = rebuilt;
+        version++;
+      }
+      return new ArrayList<>();
+    }
+    // Diff without the lock so live updates are not blocked by an O(n) walk. A write that lands
+    // meanwhile invalidates the diff; after a few such races it is computed under the lock instead.
+    for (int attempt = 0; attempt < MAX_UNLOCKED_DIFFS; attempt++) {
+      final State current;
+      final long seen;
+      synchronized (writeLock) {
+        current = state;
+        seen = version;
+      }
+      final List<DiscordSyncChange> changes = diff(current, rebuilt);
+      synchronized (writeLock) {
+        if (state == current && version == seen) {
+          state = rebuilt;
+          version++;
+          return changes;
+        }
+      }
+    }
+    synchronized (writeLock) {
+      final List<DiscordSyncChange> changes = diff(state, rebuilt);
+      state = rebuilt;
+      version++;
+      return changes;
+    }
+  }
+
+  private static List<DiscordSyncChange> diff(State current, State rebuilt) {
+    final List<DiscordSyncChange> changes = new ArrayList<>();
+    current.forEach(existing -> {
+      if (!rebuilt.contains(parseUuid(existing.getMcUuid()))) {
+        changes.add(new DiscordSyncChange(DiscordSyncAction.REVOKED, existing, existing));
+      }
+    });
+    rebuilt.forEach(incoming -> {
+      final DiscordSyncEntry existing = current.get(parseUuid(incoming.getMcUuid()));
+      if (existing == null) {
+        changes.add(new DiscordSyncChange(DiscordSyncAction.SYNCED, incoming, null));
+      } else if (isEntryDifferent(existing, incoming)) {
+        changes.add(new DiscordSyncChange(DiscordSyncAction.REVERIFIED, incoming, existing));
+      }
+    });
+    return changes;
+  }
+
+  public DiscordSyncEntry put(DiscordSyncEntry entry) {
+    final DiscordSyncEntry previous;
+    synchronized (writeLock) {
+      previous = state.put(entry);
+      version++;
+    }
+    compactIfNeeded();
+    return previous;
+  }
+
+  public DiscordSyncEntry remove(String uuid) {
+    final DiscordSyncEntry previous;
+    synchronized (writeLock) {
+      previous = state.remove(parseUuid(uuid));
+      if (previous != null) {
+        version++;
+      }
+    }
+    compactIfNeeded();
+    return previous;
+  }
+
+  public List<DiscordSyncChange> applyDelta(
+    List<DiscordSyncEntry> upserts,
+    List<String> revokedUuids,
+    boolean computeChanges
+  ) {
+    final List<DiscordSyncChange> changes = new ArrayList<>();
+    synchronized (writeLock) {
+      final State current = state;
+      if (revokedUuids != null) {
+        for (String uuid : revokedUuids) {
+          final DiscordSyncEntry removed = current.remove(parseUuid(uuid));
+          if (computeChanges && removed != null) {
+            changes.add(new DiscordSyncChange(DiscordSyncAction.REVOKED, removed, removed));
+          }
+        }
+      }
+      if (upserts != null) {
+        for (DiscordSyncEntry entry : upserts) {
+          final DiscordSyncEntry existing = current.put(entry);
+          if (!computeChanges) {
+            continue;
+          }
+          if (existing == null) {
+            changes.add(new DiscordSyncChange(DiscordSyncAction.SYNCED, entry, null));
+          } else if (isEntryDifferent(existing, entry)) {
+            changes.add(new DiscordSyncChange(DiscordSyncAction.REVERIFIED, entry, existing));
+          }
+        }
+      }
+      version++;
+    }
+    compactIfNeeded();
+    return changes;
+  }
+
+  // Rebuilds outside the lock like replaceAll; a write that lands meanwhile discards the result and
+  // the next write retries. The rebuilt state holds the same entries, so the version is unchanged.
+  private void compactIfNeeded() {
+    if (!needsCompaction(state) || !compacting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      final State current;
+      final long seen;
+      synchronized (writeLock) {
+        current = state;
+        seen = version;
+      }
+      if (!needsCompaction(current)) {
+        return;
+      }
+      final CompactSyncStore.Builder builder = new CompactSyncStore.Builder();
+      current.forEach(builder::add);
+      final State compacted = new State(builder.build());
+      compacted.seed(builder.getIrregular());
+      synchronized (writeLock) {
+        if (state == current && version == seen) {
+          state = compacted;
+        }
+      }
+    } finally {
+      compacting.set(false);
+    }
+  }
+
+  private static boolean needsCompaction(State current) {
+    return current.mutations >= Math.max(MIN_COMPACT_THRESHOLD, current.base.size() / 8);
+  }
+
+  private static boolean isEntryDifferent(DiscordSyncEntry a, DiscordSyncEntry b) {
+    if (a == null || b == null) {
+      return true;
+    }
+    return !Objects.equals(a.getDiscordUserId(), b.getDiscordUserId())
+      || !Objects.equals(a.getMcIgn(), b.getMcIgn())
+      || !Objects.equals(a.getGuildId(), b.getGuildId());
+  }
+
+  private static UUID parseUuid(String uuid) {
+    if (uuid == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(uuid);
+    } catch (IllegalArgumentException err) {
+      return null;
+    }
+  }
+
+  private static String ignKey(String ign) {
+    return ign == null || ign.isBlank() ? null : ign.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static final class State {
+    private final CompactSyncStore base;
+    private final Overlay overlay = new Overlay();
+    private final Set<UUID> shadowed = ConcurrentHashMap.newKeySet();
+    private volatile int mutations;
+
+    private State(CompactSyncStore base) {
+      this.base = base;
+    }
+
+    private void seed(List<DiscordSyncEntry> entries) {
+      for (DiscordSyncEntry entry : entries) {
+        put(entry);
+      }
+      mutations = 0;
+    }
+
+    private DiscordSyncEntry get(UUID uuid) {
+      final DiscordSyncEntry entry = overlay.byUuid.get(uuid);
+      if (entry != null) {
+        return entry;
+      }
+      if (!shadowed.isEmpty() && shadowed.contains(uuid)) {
+        return null;
+      }
+      final int row = base.find(uuid);
+      return row < 0 ? null : base.entry(row);
+    }
+
+    private boolean contains(UUID uuid) {
+      if (overlay.byUuid.containsKey(uuid)) {
+        return true;
+      }
+      if (!shadowed.isEmpty() && shadowed.contains(uuid)) {
+        return false;
+      }
+      return base.find(uuid) >= 0;
+    }
+
+    private DiscordSyncEntry visible(int row) {
+      if (row < 0) {
+        return null;
+      }
+      if (!shadowed.isEmpty() && shadowed.contains(base.uuidKey(row))) {
+        return null;
+      }
+      return base.entry(row);
+    }
+
+    private int size() {
+      return base.size() - shadowed.size() + overlay.byUuid.size();
+    }
+
+    private DiscordSyncSnapshot snapshot(long version) {
+      final int[] all = base.rows();
+      int count = 0;
+      for (int row : all) {
+        if (shadowed.isEmpty() || !shadowed.contains(base.uuidKey(row))) {
+          all[count++] = row;
+        }
+      }
+      return new DiscordSyncSnapshot(
+        version,
+        base,
+        count == all.length ? all : Arrays.copyOf(all, count),
+        overlay.byUuid.values().toArray(new DiscordSyncEntry[0])
+      );
+    }
+
+    private void forEach(Consumer<DiscordSyncEntry> consumer) {
+      for (int row : base.rows()) {
+        final DiscordSyncEntry entry = visible(row);
+        if (entry != null) {
+          consumer.accept(entry);
+        }
+      }
+      overlay.byUuid.values().forEach(consumer);
+    }
+
+    private DiscordSyncEntry put(DiscordSyncEntry entry) {
+      final UUID uuid = entry == null ? null : parseUuid(entry.getMcUuid());
+      if (uuid == null) {
+        return null;
+      }
+      mutations++;
+      // Shadow the base row before publishing the overlay entry so lock-free readers never see the
+      // UUID twice. Between the two writes a reader may briefly miss the UUID instead; callers that
+      // need a consistent view use snapshot(), which is built under the write lock.
+      final int row = base.find(uuid);
+      final boolean wasVisible = row >= 0 && shadowed.add(uuid);
+      final DiscordSyncEntry previous = overlay.put(uuid, entry);
+      if (previous == null && wasVisible) {
+        return base.entry(row);
+      }
+      return previous;
+    }
+
+    private DiscordSyncEntry remove(UUID uuid) {
+      if (uuid == null) {
+        return null;
+      }
+      mutations++;
+      final int row = base.find(uuid);
+      final boolean wasVisible = row >= 0 && shadowed.add(uuid);
+      final DiscordSyncEntry previous = overlay.remove(uuid);
+      if (previous == null && wasVisible) {
+        return base.entry(row);
+      }
+      return previous;
+    }
+  }
+
+  private static final class Overlay {
+    private final ConcurrentHashMap<UUID, DiscordSyncEntry> byUuid = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UUID> byDiscordId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UUID> byIgn = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<UUID>> byGuild = new ConcurrentHashMap<>();
+
+    private DiscordSyncEntry getByDiscordId(String discordUserId) {
+      final UUID uuid = byDiscordId.get(discordUserId);
+      final DiscordSyncEntry entry = uuid == null ? null : byUuid.get(uuid);
+      return entry != null && discordUserId.equals(entry.getDiscordUserId()) ? entry : null;
+    }
+
+    private DiscordSyncEntry getByIgn(String ign) {
+      final String key = ignKey(ign);
+      final UUID uuid = key == null ? null : byIgn.get(key);
+      final DiscordSyncEntry entry = uuid == null ? null : byUuid.get(uuid);
+      return entry != null && key.equals(ignKey(entry.getMcIgn())) ? entry : null;
+    }
+
+    private List<DiscordSyncEntry> getByGuild(String guildId) {
+      final Set<UUID> uuids = byGuild.get(guildId);
+      if (uuids == null) {
+        return List.of();
+      }
+      final List<DiscordSyncEntry> entries = new ArrayList<>(uuids.size());
+      for (UUID uuid : uuids) {
+        final DiscordSyncEntry entry = byUuid.get(uuid);
+        if (entry != null && guildId.equals(entry.getGuildId())) {
+          entries.add(entry);
+        }
+      }
+      return entries;
+    }
+
+    private DiscordSyncEntry put(UUID uuid, DiscordSyncEntry entry) {
+      final DiscordSyncEntry previous = byUuid.put(uuid, entry);
+      if (previous != null) {
+        unindex(uuid, previous);
+      }
+      index(uuid, entry);
+      return previous;
+    }
+
+    private DiscordSyncEntry remove(UUID uuid) {
+      final DiscordSyncEntry previous = byUuid.remove(uuid);
+      if (previous != null) {
+        unindex(uuid, previous);
+      }
+      return previous;
+    }
+
+    private void index(UUID uuid, DiscordSyncEntry entry) {
+      if (entry.getDiscordUserId() != null) {
+        byDiscordId.put(entry.getDiscordUserId(), uuid);
+      }
+      final String ign = ignKey(entry.getMcIgn());
+      if (ign != null) {
+        byIgn.put(ign, uuid);
+      }
+      if (entry.getGuildId() != null) {
+        byGuild.computeIfAbsent(entry.getGuildId(), key -> ConcurrentHashMap.newKeySet()).add(uuid);
+      }
+    }
+
+    private void unindex(UUID uuid, DiscordSyncEntry entry) {
+      if (entry.getDiscordUserId() != null) {
+        byDiscordId.remove(entry.getDiscordUserId(), uuid);
+      }
+      final String ign = ignKey(entry.getMcIgn());
+      if (ign != null) {
+        byIgn.remove(ign, uuid);
+      }
+      if (entry.getGuildId() != null) {
+        byGuild.computeIfPresent(entry.getGuildId(), (key, members) -> {
+          members.remove(uuid);
+          return members.isEmpty() ? null : members;
+        });
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package kr.lunaf.verify;
+
+public class DiscordSyncChange {
+  private final DiscordSyncAction action;
+  private final DiscordSyncEntry entry;
+  private final DiscordSyncEntry previous;
+
+  public DiscordSyncChange(DiscordSyncAction action, DiscordSyncEntry entry, DiscordSyncEntry previous) {
+    this.action = action;
+    this.entry = entry;
+    this.previous = previous;
+  }
+
+  public DiscordSyncAction getAction() {
+    return action;
+  }
+
+  public DiscordSyncEntry getEntry() {
+    return entry;
+  }
+
+  public DiscordSyncEntry getPrevious() {
+    return previous;
+  }
+}
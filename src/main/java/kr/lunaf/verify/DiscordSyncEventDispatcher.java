@@ -0,0 +1,93 @@
+package kr.lunaf.verify;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public class DiscordSyncEventDispatcher {
+  private final JavaPlugin plugin;
+  private final OnlinePlayerIndex playerIndex;
+  private final long budgetNanos;
+  private final ArrayDeque<DiscordSyncChange> queue = new ArrayDeque<>();
+  private boolean scheduled;
+
+  public DiscordSyncEventDispatcher(JavaPlugin plugin, OnlinePlayerIndex playerIndex, long budgetMillis) {
+    this.plugin = plugin;
+    this.playerIndex = playerIndex;
+    this.budgetNanos = Math.max(1L, budgetMillis) * 1_000_000L;
+  }
+
+  public void submit(List<DiscordSyncChange> changes, boolean fullSnapshot) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    final boolean perEntry = DiscordSyncEvent.getHandlerList().getRegisteredListeners().length > 0;
+    final boolean batched = DiscordSyncBatchEvent.getHandlerList().getRegisteredListeners().length > 0;
+    if (!perEntry && !batched) {
+      return;
+    }
+    final DiscordSyncBatchEvent batch = new DiscordSyncBatchEvent(changes, fullSnapshot);
+    if (perEntry) {
+      synchronized (this) {
+        queue.addAll(batch.getChanges());
+      }
+    }
+    Bukkit.getScheduler().runTask(plugin, () -> {
+      Bukkit.getPluginManager().callEvent(batch);
+      scheduleDrain();
+    });
+  }
+
+  public void submit(DiscordSyncChange change) {
+    submit(List.of(change), false);
+  }
+
+  public synchronized int pending() {
+    return queue.size();
+  }
+
+  private void scheduleDrain() {
+    synchronized (this) {
+      if (scheduled || queue.isEmpty()) {
+        return;
+      }
+      scheduled = true;
+    }
+    drain();
+  }
+
+  private void drain() {
+    final long deadline = System.nanoTime() + budgetNanos;
+    while (System.nanoTime() < deadline) {
+      final DiscordSyncChange change;
+      synchronized (this) {
+        change = queue.pollFirst();
+      }
+      if (change == null) {
+        break;
+      }
+      Bukkit.getPluginManager().callEvent(new DiscordSyncEvent(change.getAction(), change.getEntry(), findPlayer(change.getEntry())));
+    }
+    synchronized (this) {
+      if (queue.isEmpty()) {
+        scheduled = false;
+        return;
+      }
+    }
+    Bukkit.getScheduler().runTaskLater(plugin, this::drain, 1L);
+  }
+
+  private Player findPlayer(DiscordSyncEntry entry) {
+    if (entry == null || entry.getMcUuid() == null || playerIndex == null) {
+      return null;
+    }
+    try {
+      return playerIndex.getPlayer(UUID.fromString(entry.getMcUuid()));
+    } catch (IllegalArgumentException err) {
+      return null;
+    }
+  }
+}
@@ -1,11 +1,13 @@
 package kr.lunaf.verify;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.security.DigestInputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -13,9 +15,21 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import org.bukkit.Bukkit;
@@ -24,6 +38,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 public class DiscordSyncService {
   private static final String HMAC_ALGO = "HmacSHA256";
+  private static final int MAX_SYNC_PAGES = 100_000;
   private static final String DEFAULT_SYNC_API_URL = "https://verify.lunaf.kr/api/v1/plugin/sync-9b4f7d2c6a5e4f3aa1d8b9a7c6e5d4f3";
   private final JavaPlugin plugin;
   private final Gson gson = new Gson();
@@ -39,9 +54,31 @@ public class DiscordSyncService {
   private final int timeoutSeconds;
   private final long cooldownSeconds;
   private final Path stateFile;
+  private final Path cursorFile;
+  private final boolean deltaEnabled;
+  private final Path cacheFile;
+  private final long cacheMaxAgeMillis;
+  private final boolean pushEnabled;
+  private final String pushUrl;
+  private final long pushIdleTimeoutSeconds;
+  private final long pushMaxBackoffSeconds;
+  private final long timestampSkewSeconds;
+  private final int pageSize;
+  private final int pageParallelism;
+  private final int pageRetries;
+  private final Object syncLock = new Object();
+  private final ThreadPoolExecutor pageExecutor;
+  private SyncPushChannel pushChannel;
+  private volatile boolean running;
+  private volatile boolean cacheSaveScheduled;
+  private volatile boolean resyncScheduled;
   private volatile long lastSyncEpochSeconds = 0L;
+  private volatile String cursor;
+  private volatile String etag;
+  private volatile String etagSince;
+  private volatile String contentHash;
   private int taskId = -1;
-  private boolean initialSyncDone = false;
+  private volatile boolean initialSyncDone = false;
 
   public DiscordSyncService(JavaPlugin plugin, FileConfiguration config) {
     this.plugin = plugin;
@@ -58,10 +95,40 @@ public class DiscordSyncService {
     this.timeoutSeconds = Math.max(3, config.getInt("sync-timeout-seconds", 6));
     this.cooldownSeconds = Math.max(0L, config.getLong("sync-cooldown-seconds", 60L));
     this.stateFile = new File(plugin.getDataFolder(), "sync-state.txt").toPath();
+    this.cursorFile = new File(plugin.getDataFolder(), "sync-cursor.txt").toPath();
+    this.deltaEnabled = config.getBoolean("sync-delta-enabled", true);
+    this.cacheFile = config.getBoolean("sync-cache-persist", true)
+      ? new File(plugin.getDataFolder(), "sync-cache.bin").toPath()
+      : null;
+    this.cacheMaxAgeMillis = Math.max(0L, config.getLong("sync-cache-max-age-seconds", 604800L)) * 1000L;
+    this.pushEnabled = config.getBoolean("sync-push-enabled", false);
+    final String configuredPushUrl = String.valueOf(config.getString("sync-push-url", "")).trim();
+    this.pushUrl = configuredPushUrl.isEmpty() ? apiUrl.replaceAll("/+$", "") + "/stream" : configuredPushUrl;
+    this.pushIdleTimeoutSeconds = Math.max(10L, config.getLong("sync-push-idle-timeout-seconds", 90L));
+    this.pushMaxBackoffSeconds = Math.max(1L, config.getLong("sync-push-max-backoff-seconds", 60L));
+    this.timestampSkewSeconds = config.getLong("timestamp-skew-seconds", 300L);
+    this.pageSize = Math.max(0, config.getInt("sync-page-size", 5000));
+    this.pageParallelism = Math.max(1, config.getInt("sync-page-parallelism", 4));
+    this.pageRetries = Math.max(0, config.getInt("sync-page-retries", 3));
+    this.pageExecutor = new ThreadPoolExecutor(
+      pageParallelism,
+      pageParallelism,
+      60L,
+      TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(),
+      runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setName("lunaverifier-sync-page");
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    this.pageExecutor.allowCoreThreadTimeOut(true);
     this.client = HttpClient.newBuilder()
       .connectTimeout(Duration.ofSeconds(3))
       .build();
     loadLastSync();
+    loadCursor();
   }
 
   public void start() {
@@ -72,14 +139,24 @@ public class DiscordSyncService {
       plugin.getLogger().warning("Sync disabled: sync-api-url/server-id/server-secret not set.");
       return;
     }
-
-    if (syncOnStartup) {
-      if (canSyncNow()) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> syncOnce(true));
-      } else if (intervalTicks <= 0L) {
-        final long delaySeconds = Math.max(1L, cooldownSeconds - (nowEpochSeconds() - lastSyncEpochSeconds));
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> syncOnce(true), delaySeconds * 20L);
+    running = true;
+    final boolean syncNow = syncOnStartup && canSyncNow();
+    // Reading sync-cache.bin can take a while for large guilds, so keep it off the enable thread.
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      synchronized (syncLock) {
+        if (!loadCacheSnapshot()) {
+          cursor = null;
+        }
       }
+      if (syncNow) {
+        syncOnce(true);
+      }
+      startPush();
+    });
+
+    if (syncOnStartup && !syncNow && intervalTicks <= 0L) {
+      final long delaySeconds = Math.max(1L, cooldownSeconds - (nowEpochSeconds() - lastSyncEpochSeconds));
+      Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> syncOnce(true), delaySeconds * 20L);
     }
 
     if (intervalTicks > 0L) {
@@ -92,90 +169,408 @@ public class DiscordSyncService {
     }
   }
 
+  private synchronized void startPush() {
+    if (!pushEnabled || !running) {
+      return;
+    }
+    if (!deltaEnabled) {
+      plugin.getLogger().warning("Sync push requires sync-delta-enabled; using polling only.");
+      return;
+    }
+    pushChannel = new SyncPushChannel(
+      plugin.getLogger(),
+      client,
+      new PushHandler(),
+      pushIdleTimeoutSeconds,
+      pushMaxBackoffSeconds
+    );
+    pushChannel.start();
+  }
+
   public void stop() {
     if (taskId != -1) {
       Bukkit.getScheduler().cancelTask(taskId);
       taskId = -1;
     }
+    synchronized (this) {
+      running = false;
+      if (pushChannel != null) {
+        pushChannel.stop();
+        pushChannel = null;
+      }
+    }
+    pageExecutor.shutdownNow();
+    if (cacheSaveScheduled) {
+      synchronized (syncLock) {
+        saveCacheSnapshot();
+      }
+    }
+  }
+
+  public boolean isPushConnected() {
+    final SyncPushChannel channel = pushChannel;
+    return channel != null && channel.isConnected();
   }
 
   private void syncOnce(boolean isInitialRun) {
+    if (!isInitialRun && isPushConnected()) {
+      return;
+    }
+    synchronized (syncLock) {
+      syncLocked(isInitialRun);
+    }
+  }
+
+  private void syncLocked(boolean isInitialRun) {
     if (!canSyncNow()) {
       return;
     }
     try {
-      final String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
-      final String nonce = java.util.UUID.randomUUID().toString();
-      final JsonObject payload = new JsonObject();
-      payload.addProperty("server_id", serverId);
-
-      final String signatureBody = buildSignatureBody(timestamp, nonce, payload);
-      final String signature = hmacSha256Hex(serverSecret, signatureBody);
-
-      final JsonObject requestBody = new JsonObject();
-      requestBody.addProperty("timestamp", timestamp);
-      requestBody.addProperty("nonce", nonce);
-      requestBody.add("payload", payload);
-      requestBody.addProperty("signature", signature);
-
-      final HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(apiUrl))
-        .timeout(Duration.ofSeconds(timeoutSeconds))
-        .header("Content-Type", "application/json")
-        .header("User-Agent", "LunaVerifier/" + plugin.getDescription().getVersion())
-        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody), StandardCharsets.UTF_8))
-        .build();
-
-      final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-      if (response.statusCode() == 429) {
+      final String since = deltaEnabled ? cursor : null;
+      SyncResponse response = since == null ? fetchFull() : fetch(since);
+      if (since != null && (response.getStatusCode() == 410 || response.isResyncRequired())) {
+        plugin.getLogger().info("Sync cursor expired; running full resync.");
+        clearCursor();
+        response = fetchFull();
+      }
+      if (response.getStatusCode() == 429) {
         plugin.getLogger().info("Sync rate limited by server.");
         return;
       }
-      if (response.statusCode() != 200) {
-        plugin.getLogger().warning("Sync failed: HTTP " + response.statusCode());
+      if (response.getStatusCode() == 304) {
+        lastSyncEpochSeconds = nowEpochSeconds();
+        saveLastSync();
+        initialSyncDone = true;
+        return;
+      }
+      if (response.getStatusCode() != 200) {
+        plugin.getLogger().warning("Sync failed: HTTP " + response.getStatusCode());
         return;
       }
 
-      final JsonObject root = JsonParser.parseString(response.body()).getAsJsonObject();
-      final JsonArray entries = root.has("entries") && root.get("entries").isJsonArray()
-        ? root.getAsJsonArray("entries")
-        : new JsonArray();
+      final boolean shouldFireEvents = fireEvents && (!isInitialRun || fireInitialEvents || initialSyncDone);
+      boolean changed = false;
+      if (response.isSnapshot()) {
+        final boolean unchanged = initialSyncDone
+          && response.getContentHash() != null
+          && response.getContentHash().equals(contentHash);
+        if (!unchanged && plugin instanceof LunaVerifierPlugin) {
+          ((LunaVerifierPlugin) plugin).applySyncSnapshot(response.getEntries(), shouldFireEvents);
+          changed = true;
+        }
+        contentHash = response.getContentHash();
+        etag = response.getEtag();
+        etagSince = null;
+      } else if (since != null) {
+        if (plugin instanceof LunaVerifierPlugin) {
+          ((LunaVerifierPlugin) plugin).applySyncDelta(response.getUpserts(), response.getRevocations(), shouldFireEvents);
+        }
+        if (!response.getUpserts().isEmpty() || !response.getRevocations().isEmpty()) {
+          contentHash = null;
+          changed = true;
+        }
+        etag = response.getEtag();
+        etagSince = since;
+      } else {
+        plugin.getLogger().warning("Sync response has no entries.");
+        return;
+      }
+      final String nextCursor = response.getCursor();
+      if (deltaEnabled && nextCursor != null && !nextCursor.isBlank() && !nextCursor.equals(cursor)) {
+        cursor = nextCursor;
+        saveCursor();
+        changed = true;
+      }
+      if (changed) {
+        saveCacheSnapshot();
+      }
+      lastSyncEpochSeconds = nowEpochSeconds();
+      saveLastSync();
+      initialSyncDone = true;
+    } catch (Exception err) {
+      plugin.getLogger().warning("Sync error: " + err.getMessage());
+    }
+  }
 
-      final List<DiscordSyncEntry> snapshot = new ArrayList<>();
-      for (JsonElement element : entries) {
-        if (!element.isJsonObject()) {
-          continue;
+  private SyncResponse fetch(String since) throws Exception {
+    final String ifNoneMatch = etag != null && Objects.equals(etagSince, since) ? etag : null;
+    return fetch(since, -1, ifNoneMatch);
+  }
+
+  private SyncResponse fetchFull() throws Exception {
+    if (pageSize <= 0) {
+      return fetch(null);
+    }
+    final String ifNoneMatch = etag != null && etagSince == null ? etag : null;
+    final SyncResponse first = fetchPage(0, ifNoneMatch);
+    if (first.getStatusCode() != 200 || (first.getTotalPages() <= 1 && !first.hasMore())) {
+      return first;
+    }
+    final CompactSyncStore.Builder entries = requirePage(first).getEntries();
+    if (first.getTotalPages() > 1) {
+      fetchPagesParallel(first.getTotalPages(), entries);
+    } else {
+      int page = 1;
+      SyncResponse current = first;
+      while (current.hasMore()) {
+        current = requirePage(fetchPage(page++, null));
+        if (current.getEntries().size() == 0) {
+          break;
         }
-        final JsonObject obj = element.getAsJsonObject();
-        final String mcUuid = getString(obj, "mc_uuid");
-        if (mcUuid == null || mcUuid.isBlank()) {
-          continue;
+        entries.addAll(current.getEntries());
+      }
+    }
+    first.setValidators(null, null);
+    return first;
+  }
+
+  private void fetchPagesParallel(int totalPages, CompactSyncStore.Builder entries) throws Exception {
+    if (totalPages > MAX_SYNC_PAGES) {
+      throw new IllegalStateException("Sync response reports " + totalPages + " pages (max " + MAX_SYNC_PAGES + ")");
+    }
+    final AtomicInteger nextPage = new AtomicInteger(1);
+    final int workers = Math.min(pageParallelism, totalPages - 1);
+    final PageMerger merger = new PageMerger(entries, workers);
+    final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+    try {
+      for (int i = 0; i < workers; i++) {
+        futures.add(CompletableFuture.runAsync(() -> {
+          int page;
+          while ((page = nextPage.getAndIncrement()) < totalPages) {
+            try {
+              if (!merger.awaitSlot(page)) {
+                return;
+              }
+              // Each page parses into its own builder, so a retried or failed page never leaves rows behind.
+              merger.complete(page, requirePage(fetchPage(page, null)).getEntries());
+            } catch (InterruptedException err) {
+              Thread.currentThread().interrupt();
+              nextPage.set(totalPages);
+              merger.fail();
+              throw new CompletionException(err);
+            } catch (Exception err) {
+              nextPage.set(totalPages);
+              merger.fail();
+              throw new CompletionException(err);
+            }
+          }
+        }, pageExecutor));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException err) {
+      throw err.getCause() instanceof Exception ? (Exception) err.getCause() : err;
+    } catch (RejectedExecutionException err) {
+      nextPage.set(totalPages);
+      merger.fail();
+      throw new IllegalStateException("Sync page fetch rejected: service stopped");
+    }
+  }
+
+  private SyncResponse fetchPage(int page, String ifNoneMatch) throws Exception {
+    long backoffMillis = 500L;
+    for (int attempt = 0; ; attempt++) {
+      String failure;
+      try {
+        final SyncResponse response = fetch(null, page, ifNoneMatch);
+        if (response.getStatusCode() != 429 && response.getStatusCode() < 500) {
+          return response;
         }
-        final String occurredAt = getString(obj, "occurred_at");
-        final String verifiedAt = getString(obj, "verified_at");
-        snapshot.add(new DiscordSyncEntry(
-          mcUuid,
-          getString(obj, "mc_ign"),
-          getString(obj, "discord_user_id"),
-          getString(obj, "guild_id"),
-          occurredAt,
-          verifiedAt
-        ));
+        failure = "HTTP " + response.getStatusCode();
+      } catch (IOException err) {
+        failure = err.getMessage();
+      }
+      if (attempt >= pageRetries) {
+        throw new IllegalStateException("Sync page " + page + " failed after " + (attempt + 1) + " attempts: " + failure);
       }
+      Thread.sleep(backoffMillis);
+      backoffMillis = Math.min(8000L, backoffMillis * 2L);
+    }
+  }
 
-      final boolean shouldFireEvents = fireEvents && (!isInitialRun || fireInitialEvents || initialSyncDone);
+  private static SyncResponse requirePage(SyncResponse response) {
+    if (response.getStatusCode() != 200 || !response.isSnapshot()) {
+      throw new IllegalStateException("Sync page failed: HTTP " + response.getStatusCode());
+    }
+    return response;
+  }
+
+  private SyncResponse fetch(String since, int page, String ifNoneMatch) throws Exception {
+    final HttpResponse<InputStream> response = requestSync(since, page, ifNoneMatch);
+    try (InputStream body = response.body()) {
+      if (response.statusCode() != 200) {
+        return SyncResponse.status(response.statusCode());
+      }
+      final boolean gzip = response.headers().firstValue("Content-Encoding")
+        .map(value -> value.trim().equalsIgnoreCase("gzip"))
+        .orElse(false);
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      final InputStream decoded = gzip ? new GZIPInputStream(body, 8192) : body;
+      final SyncResponse parsed = SyncResponse.read(new DigestInputStream(decoded, digest));
+      parsed.setValidators(response.headers().firstValue("ETag").orElse(null), toHex(digest.digest()));
+      return parsed;
+    }
+  }
+
+  private HttpResponse<InputStream> requestSync(String since, int page, String ifNoneMatch) throws Exception {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder()
+      .uri(URI.create(apiUrl))
+      .timeout(Duration.ofSeconds(timeoutSeconds))
+      .header("Content-Type", "application/json")
+      .header("User-Agent", "LunaVerifier/" + plugin.getDescription().getVersion())
+      .header("Accept-Encoding", "gzip");
+    if (ifNoneMatch != null) {
+      builder.header("If-None-Match", ifNoneMatch);
+    }
+    final HttpRequest request = builder
+      .POST(HttpRequest.BodyPublishers.ofString(buildSignedRequest(since, page), StandardCharsets.UTF_8))
+      .build();
+
+    return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  private String buildSignedRequest(String since, int page) {
+    final String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+    final String nonce = java.util.UUID.randomUUID().toString();
+    final JsonObject payload = new JsonObject();
+    payload.addProperty("server_id", serverId);
+    if (since != null) {
+      payload.addProperty("since", since);
+    }
+    if (page >= 0) {
+      payload.addProperty("page", page);
+      payload.addProperty("limit", pageSize);
+    }
+
+    final String signatureBody = buildSignatureBody(timestamp, nonce, payload);
+    final String signature = hmacSha256Hex(serverSecret, signatureBody);
+
+    final JsonObject requestBody = new JsonObject();
+    requestBody.addProperty("timestamp", timestamp);
+    requestBody.addProperty("nonce", nonce);
+    requestBody.add("payload", payload);
+    requestBody.addProperty("signature", signature);
+    return gson.toJson(requestBody);
+  }
+
+  private HttpRequest openPushRequest() {
+    final String since = cursor;
+    if (since == null || !initialSyncDone) {
+      return null;
+    }
+    return HttpRequest.newBuilder()
+      .uri(URI.create(pushUrl))
+      .timeout(Duration.ofSeconds(timeoutSeconds))
+      .header("Content-Type", "application/json")
+      .header("Accept", "text/event-stream")
+      .header("User-Agent", "LunaVerifier/" + plugin.getDescription().getVersion())
+      .POST(HttpRequest.BodyPublishers.ofString(buildSignedRequest(since, -1), StandardCharsets.UTF_8))
+      .build();
+  }
+
+  private void applyPushRecord(JsonObject payload) {
+    synchronized (syncLock) {
+      if (cursor == null) {
+        return;
+      }
+      final SyncResponse record;
+      try {
+        record = SyncResponse.read(new StringReader(payload.toString()));
+      } catch (Exception err) {
+        plugin.getLogger().warning("Sync push record could not be parsed: " + err.getMessage());
+        return;
+      }
+      if (record.isResyncRequired()) {
+        requestPushResync();
+        return;
+      }
       if (plugin instanceof LunaVerifierPlugin) {
-        ((LunaVerifierPlugin) plugin).applySyncSnapshot(snapshot, shouldFireEvents);
+        ((LunaVerifierPlugin) plugin).applySyncDelta(record.getUpserts(), record.getRevocations(), fireEvents);
+      }
+      contentHash = null;
+      etag = null;
+      etagSince = null;
+      final String nextCursor = record.getCursor();
+      if (nextCursor != null && !nextCursor.isBlank() && !nextCursor.equals(cursor)) {
+        cursor = nextCursor;
+        saveCursor();
       }
       lastSyncEpochSeconds = nowEpochSeconds();
       saveLastSync();
-      initialSyncDone = true;
+      scheduleCacheSave();
+    }
+  }
+
+  private void requestPushResync() {
+    plugin.getLogger().info("Sync push requested a full resync.");
+    synchronized (syncLock) {
+      clearCursor();
+      etag = null;
+      etagSince = null;
+      lastSyncEpochSeconds = 0L;
+      if (resyncScheduled || !plugin.isEnabled()) {
+        return;
+      }
+      resyncScheduled = true;
+    }
+    // The full sync runs on the scheduler so the stream reader keeps draining events meanwhile.
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      synchronized (syncLock) {
+        resyncScheduled = false;
+        syncLocked(false);
+      }
+    });
+  }
+
+  private void scheduleCacheSave() {
+    if (cacheFile == null || cacheSaveScheduled) {
+      return;
+    }
+    cacheSaveScheduled = true;
+    Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+      synchronized (syncLock) {
+        if (cacheSaveScheduled) {
+          saveCacheSnapshot();
+        }
+      }
+    }, 200L);
+  }
+
+  private boolean verifyPushRecord(JsonObject record) {
+    final String timestamp = getString(record, "timestamp");
+    final String nonce = getString(record, "nonce");
+    final String signature = getString(record, "signature");
+    if (timestamp == null || nonce == null || signature == null) {
+      return false;
+    }
+    final String expected = hmacSha256Hex(serverSecret, buildSignatureBody(timestamp, nonce, record.get("payload")));
+    if (!MessageDigest.isEqual(
+      expected.getBytes(StandardCharsets.UTF_8),
+      signature.toLowerCase(java.util.Locale.ROOT).getBytes(StandardCharsets.UTF_8)
+    )) {
+      return false;
+    }
+    if (timestampSkewSeconds <= 0L) {
+      return true;
+    }
+    try {
+      return Math.abs(nowEpochSeconds() - Long.parseLong(timestamp)) <= timestampSkewSeconds;
+    } catch (NumberFormatException err) {
+      return false;
+    }
+  }
+
+  private static String getString(JsonObject obj, String key) {
+    if (obj == null || !obj.has(key) || obj.get(key).isJsonNull()) {
+      return null;
+    }
+    try {
+      return obj.get(key).getAsString();
     } catch (Exception err) {
-      plugin.getLogger().warning("Sync error: " + err.getMessage());
+      return null;
     }
   }
 
-  private String buildSignatureBody(String timestamp, String nonce, JsonObject payload) {
+  private String buildSignatureBody(String timestamp, String nonce, JsonElement payload) {
     return "{\"timestamp\":" + gson.toJson(timestamp)
       + ",\"nonce\":" + gson.toJson(nonce)
       + ",\"payload\":" + payload.toString()
@@ -189,26 +584,18 @@ public class DiscordSyncService {
     try {
       final Mac mac = Mac.getInstance(HMAC_ALGO);
       mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGO));
-      final byte[] digest = mac.doFinal(input.getBytes(StandardCharsets.UTF_8));
-      final StringBuilder sb = new StringBuilder(digest.length * 2);
-      for (byte b : digest) {
-        sb.append(String.format("%02x", b));
-      }
-      return sb.toString();
+      return toHex(mac.doFinal(input.getBytes(StandardCharsets.UTF_8)));
     } catch (Exception err) {
       return "";
     }
   }
 
-  private static String getString(JsonObject obj, String key) {
-    if (obj == null || key == null || !obj.has(key) || obj.get(key).isJsonNull()) {
-      return null;
-    }
-    try {
-      return obj.get(key).getAsString();
-    } catch (Exception err) {
-      return null;
+  private static String toHex(byte[] digest) {
+    final StringBuilder sb = new StringBuilder(digest.length * 2);
+    for (byte b : digest) {
+      sb.append(String.format("%02x", b));
     }
+    return sb.toString();
   }
 
   private boolean canSyncNow() {
@@ -245,4 +632,144 @@ public class DiscordSyncService {
       // ignore
     }
   }
+
+  private boolean loadCacheSnapshot() {
+    if (cacheFile == null || !(plugin instanceof LunaVerifierPlugin)) {
+      return false;
+    }
+    final SyncCacheSnapshot snapshot;
+    try {
+      snapshot = SyncCacheSnapshot.load(cacheFile);
+    } catch (Exception err) {
+      plugin.getLogger().warning("Failed to load sync cache: " + err.getMessage());
+      return false;
+    }
+    if (snapshot == null) {
+      return false;
+    }
+    if (cacheMaxAgeMillis > 0L && System.currentTimeMillis() - snapshot.getSavedAtMillis() > cacheMaxAgeMillis) {
+      plugin.getLogger().info("Sync cache is older than sync-cache-max-age-seconds; waiting for a full sync.");
+      return false;
+    }
+    ((LunaVerifierPlugin) plugin).applySyncSnapshot(snapshot.getEntries(), false);
+    cursor = deltaEnabled ? snapshot.getCursor() : null;
+    contentHash = snapshot.getContentHash();
+    // Older caches stored the body hash as a made-up ETag; only a server ETag may be sent back.
+    etag = contentHash != null && ("\"" + contentHash + "\"").equals(snapshot.getEtag()) ? null : snapshot.getEtag();
+    etagSince = null;
+    initialSyncDone = true;
+    plugin.getLogger().info("Loaded " + snapshot.getEntries().size() + " sync entries from cache.");
+    return true;
+  }
+
+  private void saveCacheSnapshot() {
+    if (cacheFile == null || !(plugin instanceof LunaVerifierPlugin)) {
+      return;
+    }
+    cacheSaveScheduled = false;
+    try {
+      SyncCacheSnapshot.save(
+        cacheFile,
+        ((LunaVerifierPlugin) plugin).getDiscordSyncCache(),
+        cursor,
+        etagSince == null ? etag : null,
+        contentHash
+      );
+    } catch (Exception err) {
+      plugin.getLogger().warning("Failed to save sync cache: " + err.getMessage());
+    }
+  }
+
+  private void loadCursor() {
+    if (!deltaEnabled) {
+      return;
+    }
+    try {
+      if (!Files.exists(cursorFile)) {
+        return;
+      }
+      final String text = Files.readString(cursorFile, StandardCharsets.UTF_8).trim();
+      cursor = text.isEmpty() ? null : text;
+    } catch (Exception err) {
+      // ignore invalid cursor
+    }
+  }
+
+  private void saveCursor() {
+    try {
+      Files.createDirectories(cursorFile.getParent());
+      Files.writeString(cursorFile, cursor, StandardCharsets.UTF_8);
+    } catch (Exception err) {
+      // ignore
+    }
+  }
+
+  private void clearCursor() {
+    cursor = null;
+    try {
+      Files.deleteIfExists(cursorFile);
+    } catch (Exception err) {
+      // ignore
+    }
+  }
+
+  // Merges pages into the target in page order so later pages still win on duplicate UUIDs.
+  // Workers may run at most `window` pages ahead of the next page to merge, which bounds
+  // the pages held outside the target to the fetch parallelism.
+  private static final class PageMerger {
+    private final CompactSyncStore.Builder target;
+    private final int window;
+    private final Map<Integer, CompactSyncStore.Builder> pending = new HashMap<>();
+    private int nextToMerge = 1;
+    private boolean failed;
+
+    private PageMerger(CompactSyncStore.Builder target, int window) {
+      this.target = target;
+      this.window = window;
+    }
+
+    synchronized boolean awaitSlot(int page) throws InterruptedException {
+      while (!failed && page >= nextToMerge + window) {
+        wait();
+      }
+      return !failed;
+    }
+
+    synchronized void complete(int page, CompactSyncStore.Builder builder) {
+      pending.put(page, builder);
+      CompactSyncStore.Builder ready;
+      while ((ready = pending.remove(nextToMerge)) != null) {
+        target.addAll(ready);
+        nextToMerge++;
+      }
+      notifyAll();
+    }
+
+    synchronized void fail() {
+      failed = true;
+      notifyAll();
+    }
+  }
+
+  private class PushHandler implements SyncPushChannel.Handler {
+    @Override
+    public HttpRequest openRequest() {
+      return openPushRequest();
+    }
+
+    @Override
+    public boolean verify(JsonObject record) {
+      return verifyPushRecord(record);
+    }
+
+    @Override
+    public void onRecord(JsonObject payload) {
+      applyPushRecord(payload);
+    }
+
+    @Override
+    public void onResync() {
+      requestPushResync();
+    }
+  }
 }
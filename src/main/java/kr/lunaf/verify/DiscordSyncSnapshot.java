@@ -0,0 +1,70 @@
+package kr.lunaf.verify;
+
+import java.util.AbstractList;
+import java.util.List;
+
+public final class DiscordSyncSnapshot {
+  static final DiscordSyncSnapshot EMPTY = new DiscordSyncSnapshot(
+    0L,
+    CompactSyncStore.empty(),
+    new int[0],
+    new DiscordSyncEntry[0]
+  );
+
+  private final long version;
+  private final CompactSyncStore base;
+  private final int[] rows;
+  private final DiscordSyncEntry[] overlay;
+  private final List<DiscordSyncEntry> entryList;
+  private volatile String[] uuids;
+
+  // Shares the immutable base store; entries are built when the list is read.
+  DiscordSyncSnapshot(long version, CompactSyncStore base, int[] rows, DiscordSyncEntry[] overlay) {
+    this.version = version;
+    this.base = base;
+    this.rows = rows;
+    this.overlay = overlay;
+    this.entryList = new AbstractList<>() {
+      @Override
+      public DiscordSyncEntry get(int index) {
+        if (index < 0 || index >= size()) {
+          throw new IndexOutOfBoundsException(index);
+        }
+        return index < rows.length ? base.entry(rows[index]) : overlay[index - rows.length];
+      }
+
+      @Override
+      public int size() {
+        return rows.length + overlay.length;
+      }
+    };
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public int size() {
+    return rows.length + overlay.length;
+  }
+
+  public List<DiscordSyncEntry> getEntries() {
+    return entryList;
+  }
+
+  // Built once per snapshot and shared by every caller; the array must not be modified.
+  public String[] getUuidArray() {
+    String[] cached = uuids;
+    if (cached == null) {
+      cached = new String[size()];
+      for (int i = 0; i < rows.length; i++) {
+        cached[i] = base.uuid(rows[i]);
+      }
+      for (int i = 0; i < overlay.length; i++) {
+        cached[rows.length + i] = overlay[i].getMcUuid();
+      }
+      uuids = cached;
+    }
+    return cached;
+  }
+}
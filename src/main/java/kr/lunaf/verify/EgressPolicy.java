@@ -0,0 +1,328 @@
+package kr.lunaf.verify;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.bukkit.configuration.file.FileConfiguration;
+
+public class EgressPolicy {
+  public enum Verdict {
+    ALLOWED,
+    BLOCKED_SCHEME,
+    BLOCKED_PORT,
+    BLOCKED_HOST,
+    BLOCKED_ADDRESS
+  }
+
+  private static final int MAX_CACHED_HOSTS = 256;
+
+  private final Set<String> schemes;
+  private final BitSet ports = new BitSet(65536);
+  private final LabelNode hosts = new LabelNode();
+  private final List<CidrRule> blockedCidrs;
+  private final List<CidrRule> allowedCidrs;
+  private final long addressCacheNanos;
+  private final Map<String, Boolean> hostCache = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_CACHED_HOSTS;
+    }
+  };
+  // Resolved CIDR verdicts expire quickly; a rebinding host can still switch addresses within the TTL.
+  private final Map<String, CachedVerdict> addressCache = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedVerdict> eldest) {
+      return size() > MAX_CACHED_HOSTS;
+    }
+  };
+
+  private EgressPolicy(
+    Set<String> schemes,
+    Set<Integer> ports,
+    List<String> hosts,
+    List<CidrRule> blockedCidrs,
+    List<CidrRule> allowedCidrs,
+    int addressCacheSeconds
+  ) {
+    this.schemes = schemes;
+    for (int port : ports) {
+      if (port > 0 && port < 65536) {
+        this.ports.set(port);
+      }
+    }
+    for (String host : hosts) {
+      addHost(host);
+    }
+    this.blockedCidrs = blockedCidrs;
+    this.allowedCidrs = allowedCidrs;
+    this.addressCacheNanos = TimeUnit.SECONDS.toNanos(Math.max(0, addressCacheSeconds));
+  }
+
+  public static EgressPolicy fromConfig(FileConfiguration config, Logger logger) {
+    final List<String> hosts = new ArrayList<>();
+    for (String item : readList(config, "http-allowlist")) {
+      hosts.add(item.toLowerCase(Locale.ROOT));
+    }
+    final Set<String> schemes = new HashSet<>();
+    for (String item : readList(config, "http-allowed-schemes")) {
+      schemes.add(item.toLowerCase(Locale.ROOT));
+    }
+    if (schemes.isEmpty()) {
+      schemes.add("http");
+      schemes.add("https");
+    }
+    final Set<Integer> ports = new HashSet<>();
+    for (String item : readList(config, "http-allowed-ports")) {
+      try {
+        int port = Integer.parseInt(item);
+        if (port > 0) {
+          ports.add(port);
+        }
+      } catch (NumberFormatException err) {
+        // ignore
+      }
+    }
+    if (ports.isEmpty()) {
+      ports.add(80);
+      ports.add(443);
+    }
+    return new EgressPolicy(
+      schemes,
+      ports,
+      hosts,
+      readCidrs(config, "http-blocked-cidrs", logger),
+      readCidrs(config, "http-allowed-cidrs", logger),
+      config.getInt("http-egress-cache-seconds", 10)
+    );
+  }
+
+  public Verdict check(URI uri) {
+    final String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+    if (!schemes.contains(scheme)) {
+      return Verdict.BLOCKED_SCHEME;
+    }
+    final int port = uri.getPort() == -1 ? defaultPortForScheme(scheme) : uri.getPort();
+    if (port <= 0 || port >= 65536 || !ports.get(port)) {
+      return Verdict.BLOCKED_PORT;
+    }
+    final String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    return checkHost(host);
+  }
+
+  private Verdict checkHost(String host) {
+    if (host.isEmpty()) {
+      return Verdict.BLOCKED_HOST;
+    }
+    Boolean allowed;
+    synchronized (hostCache) {
+      allowed = hostCache.get(host);
+    }
+    if (allowed == null) {
+      allowed = isAllowedHost(host);
+      synchronized (hostCache) {
+        hostCache.put(host, allowed);
+      }
+    }
+    if (!allowed) {
+      return Verdict.BLOCKED_HOST;
+    }
+    if (blockedCidrs.isEmpty()) {
+      return Verdict.ALLOWED;
+    }
+    final long now = System.nanoTime();
+    synchronized (addressCache) {
+      final CachedVerdict cached = addressCache.get(host);
+      if (cached != null && now - cached.expiresAt < 0) {
+        return cached.verdict;
+      }
+    }
+    final Verdict verdict = resolveVerdict(host);
+    if (addressCacheNanos > 0) {
+      synchronized (addressCache) {
+        addressCache.put(host, new CachedVerdict(verdict, now + addressCacheNanos));
+      }
+    }
+    return verdict;
+  }
+
+  private Verdict resolveVerdict(String host) {
+    final InetAddress[] addresses;
+    try {
+      addresses = InetAddress.getAllByName(stripBrackets(host));
+    } catch (UnknownHostException err) {
+      return Verdict.BLOCKED_ADDRESS;
+    }
+    for (InetAddress address : addresses) {
+      if (matchesAny(blockedCidrs, address) && !matchesAny(allowedCidrs, address)) {
+        return Verdict.BLOCKED_ADDRESS;
+      }
+    }
+    return Verdict.ALLOWED;
+  }
+
+  private boolean isAllowedHost(String host) {
+    final String[] labels = host.split("\\.");
+    LabelNode node = hosts;
+    for (int i = labels.length - 1; i >= 0; i--) {
+      node = node.children.get(labels[i]);
+      if (node == null) {
+        return false;
+      }
+      if (node.wildcard && i > 0) {
+        return true;
+      }
+    }
+    return node.exact;
+  }
+
+  private void addHost(String entry) {
+    String host = entry.trim();
+    boolean wildcard = false;
+    if (host.startsWith("*.")) {
+      wildcard = true;
+      host = host.substring(2);
+    }
+    if (host.isEmpty()) {
+      return;
+    }
+    final String[] labels = host.split("\\.");
+    LabelNode node = hosts;
+    for (int i = labels.length - 1; i >= 0; i--) {
+      node = node.children.computeIfAbsent(labels[i], key -> new LabelNode());
+    }
+    if (wildcard) {
+      node.wildcard = true;
+    } else {
+      node.exact = true;
+    }
+  }
+
+  private static boolean matchesAny(List<CidrRule> rules, InetAddress address) {
+    final byte[] bytes = address.getAddress();
+    for (CidrRule rule : rules) {
+      if (rule.matches(bytes)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int defaultPortForScheme(String scheme) {
+    if ("http".equals(scheme)) {
+      return 80;
+    }
+    if ("https".equals(scheme)) {
+      return 443;
+    }
+    return -1;
+  }
+
+  private static String stripBrackets(String host) {
+    if (host.startsWith("[") && host.endsWith("]")) {
+      return host.substring(1, host.length() - 1);
+    }
+    return host;
+  }
+
+  private static List<String> readList(FileConfiguration config, String key) {
+    final List<String> values = new ArrayList<>();
+    if (!config.isList(key)) {
+      return values;
+    }
+    for (Object item : config.getList(key)) {
+      if (item != null) {
+        final String value = String.valueOf(item).trim();
+        if (!value.isEmpty()) {
+          values.add(value);
+        }
+      }
+    }
+    return values;
+  }
+
+  private static List<CidrRule> readCidrs(FileConfiguration config, String key, Logger logger) {
+    final List<CidrRule> rules = new ArrayList<>();
+    for (String item : readList(config, key)) {
+      final CidrRule rule = CidrRule.parse(item);
+      if (rule == null) {
+        logger.warning("Invalid CIDR in " + key + ": " + item);
+        continue;
+      }
+      rules.add(rule);
+    }
+    return rules;
+  }
+
+  private static final class LabelNode {
+    private final Map<String, LabelNode> children = new HashMap<>();
+    private boolean exact;
+    private boolean wildcard;
+  }
+
+  private static final class CachedVerdict {
+    private final Verdict verdict;
+    private final long expiresAt;
+
+    private CachedVerdict(Verdict verdict, long expiresAt) {
+      this.verdict = verdict;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private static final class CidrRule {
+    private final byte[] network;
+    private final int prefix;
+
+    private CidrRule(byte[] network, int prefix) {
+      this.network = network;
+      this.prefix = prefix;
+    }
+
+    private static CidrRule parse(String raw) {
+      final int slash = raw.indexOf('/');
+      final String addressPart = slash == -1 ? raw : raw.substring(0, slash);
+      if (!addressPart.contains(":") && !addressPart.matches("[0-9.]+")) {
+        return null;
+      }
+      try {
+        final byte[] network = InetAddress.getByName(addressPart).getAddress();
+        final int prefix = slash == -1 ? network.length * 8 : Integer.parseInt(raw.substring(slash + 1));
+        if (prefix < 0 || prefix > network.length * 8) {
+          return null;
+        }
+        return new CidrRule(network, prefix);
+      } catch (Exception err) {
+        return null;
+      }
+    }
+
+    private boolean matches(byte[] address) {
+      if (address.length != network.length) {
+        return false;
+      }
+      final int fullBytes = prefix / 8;
+      for (int i = 0; i < fullBytes; i++) {
+        if (address[i] != network[i]) {
+          return false;
+        }
+      }
+      final int remainder = prefix % 8;
+      if (remainder == 0) {
+        return true;
+      }
+      final int mask = (0xFF << (8 - remainder)) & 0xFF;
+      return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+    }
+  }
+}
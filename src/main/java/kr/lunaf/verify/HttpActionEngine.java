@@ -0,0 +1,337 @@
+package kr.lunaf.verify;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HttpActionEngine {
+  public enum OverflowPolicy {
+    DROP_NEWEST,
+    DROP_OLDEST;
+
+    public static OverflowPolicy parse(String raw) {
+      if (raw == null) {
+        return DROP_NEWEST;
+      }
+      final String normalized = raw.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+      if ("drop-oldest".equals(normalized)) {
+        return DROP_OLDEST;
+      }
+      return DROP_NEWEST;
+    }
+  }
+
+  private final HttpClient client;
+  private final int maxConcurrentPerHost;
+  private final int queueSizePerHost;
+  private final OverflowPolicy overflowPolicy;
+  private final CircuitBreaker.Settings breakerSettings;
+  private final ConcurrentMap<String, HostLane> lanes = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  public HttpActionEngine(
+    boolean preferHttp2,
+    int maxConcurrentPerHost,
+    int queueSizePerHost,
+    OverflowPolicy overflowPolicy,
+    CircuitBreaker.Settings breakerSettings
+  ) {
+    this.client = HttpClient.newBuilder()
+      .version(preferHttp2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(3))
+      .build();
+    this.maxConcurrentPerHost = Math.max(1, maxConcurrentPerHost);
+    this.queueSizePerHost = Math.max(0, queueSizePerHost);
+    this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP_NEWEST : overflowPolicy;
+    this.breakerSettings = breakerSettings;
+  }
+
+  public <T> CompletableFuture<HttpResponse<T>> submit(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+    final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+    if (closed) {
+      result.completeExceptionally(new RejectedExecutionException("http engine closed"));
+      return result;
+    }
+    final String host = hostKey(request);
+    lanes.computeIfAbsent(host, HostLane::new).enqueue(new PendingCall<>(request, handler, result));
+    return result;
+  }
+
+  public List<HostMetrics> getMetrics() {
+    final List<HostMetrics> metrics = new ArrayList<>();
+    for (HostLane lane : lanes.values()) {
+      metrics.add(lane.snapshot());
+    }
+    metrics.sort((a, b) -> a.getHost().compareTo(b.getHost()));
+    return metrics;
+  }
+
+  public void shutdown() {
+    closed = true;
+    for (HostLane lane : lanes.values()) {
+      lane.drain();
+    }
+  }
+
+  private static String hostKey(HttpRequest request) {
+    final String host = request.uri().getHost();
+    if (host == null) {
+      return "";
+    }
+    final int port = request.uri().getPort();
+    final String normalized = host.toLowerCase(Locale.ROOT);
+    return port == -1 ? normalized : normalized + ":" + port;
+  }
+
+  private final class HostLane {
+    private final String host;
+    private final CircuitBreaker breaker;
+    private final ArrayDeque<PendingCall<?>> queue = new ArrayDeque<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private int inFlight;
+
+    private HostLane(String host) {
+      this.host = host;
+      this.breaker = breakerSettings == null ? null : new CircuitBreaker(breakerSettings);
+    }
+
+    private void enqueue(PendingCall<?> call) {
+      if (breaker != null) {
+        call.permit = breaker.tryAcquire();
+        if (call.permit == CircuitBreaker.Permit.REJECTED) {
+          call.result.completeExceptionally(new CircuitOpenException(host));
+          return;
+        }
+      }
+      PendingCall<?> rejected = null;
+      boolean start = false;
+      synchronized (this) {
+        if (inFlight < maxConcurrentPerHost) {
+          inFlight++;
+          start = true;
+        } else if (queue.size() < queueSizePerHost) {
+          queue.addLast(call);
+        } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST && !queue.isEmpty()) {
+          rejected = queue.pollFirst();
+          queue.addLast(call);
+        } else {
+          rejected = call;
+        }
+      }
+      if (rejected != null) {
+        dropped.incrementAndGet();
+        if (breaker != null) {
+          breaker.release(rejected.permit);
+        }
+        rejected.result.completeExceptionally(new RejectedExecutionException("http queue full for " + host));
+      }
+      if (start) {
+        send(call);
+      }
+    }
+
+    private <T> void send(PendingCall<T> call) {
+      final long startedAt = System.nanoTime();
+      totalQueueNanos.addAndGet(startedAt - call.enqueuedAt);
+      final CompletableFuture<HttpResponse<T>> future;
+      try {
+        future = client.sendAsync(call.request, call.handler);
+      } catch (Exception err) {
+        onDone(call, null, err, startedAt);
+        return;
+      }
+      future.whenComplete((response, err) -> onDone(call, response, err, startedAt));
+    }
+
+    private <T> void onDone(PendingCall<T> call, HttpResponse<T> response, Throwable err, long startedAt) {
+      final long latency = System.nanoTime() - startedAt;
+      totalLatencyNanos.addAndGet(latency);
+      maxLatencyNanos.accumulateAndGet(latency, Math::max);
+      if (err != null) {
+        failed.incrementAndGet();
+      } else {
+        completed.incrementAndGet();
+      }
+      if (breaker != null) {
+        if (err == null && response.statusCode() == 429) {
+          breaker.onRateLimited(
+            call.permit,
+            CircuitBreaker.parseRetryAfterMillis(response.headers().firstValue("Retry-After").orElse(null))
+          );
+        } else {
+          breaker.onResult(call.permit, err == null && response.statusCode() < 500);
+        }
+      }
+      final PendingCall<?> next;
+      synchronized (this) {
+        next = closed ? null : queue.pollFirst();
+        if (next == null) {
+          inFlight--;
+        }
+      }
+      if (err != null) {
+        call.result.completeExceptionally(err);
+      } else {
+        call.result.complete(response);
+      }
+      if (next != null) {
+        send(next);
+      }
+    }
+
+    private void drain() {
+      final List<PendingCall<?>> pending;
+      synchronized (this) {
+        pending = new ArrayList<>(queue);
+        queue.clear();
+      }
+      for (PendingCall<?> call : pending) {
+        call.result.completeExceptionally(new RejectedExecutionException("http engine closed"));
+      }
+    }
+
+    private HostMetrics snapshot() {
+      final int currentInFlight;
+      final int queued;
+      synchronized (this) {
+        currentInFlight = inFlight;
+        queued = queue.size();
+      }
+      final long done = completed.get() + failed.get();
+      return new HostMetrics(
+        host,
+        currentInFlight,
+        queued,
+        completed.get(),
+        failed.get(),
+        dropped.get(),
+        done == 0 ? 0L : totalQueueNanos.get() / done / 1_000_000L,
+        done == 0 ? 0L : totalLatencyNanos.get() / done / 1_000_000L,
+        maxLatencyNanos.get() / 1_000_000L,
+        breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState(),
+        breaker == null ? 0L : breaker.getOpenCount(),
+        breaker == null ? 0L : breaker.getRejectedCount()
+      );
+    }
+  }
+
+  private static final class PendingCall<T> {
+    private final HttpRequest request;
+    private final HttpResponse.BodyHandler<T> handler;
+    private final CompletableFuture<HttpResponse<T>> result;
+    private final long enqueuedAt = System.nanoTime();
+    private CircuitBreaker.Permit permit = CircuitBreaker.Permit.NORMAL;
+
+    private PendingCall(HttpRequest request, HttpResponse.BodyHandler<T> handler, CompletableFuture<HttpResponse<T>> result) {
+      this.request = request;
+      this.handler = handler;
+      this.result = result;
+    }
+  }
+
+  public static final class HostMetrics {
+    private final String host;
+    private final int inFlight;
+    private final int queued;
+    private final long completed;
+    private final long failed;
+    private final long dropped;
+    private final long avgQueueMillis;
+    private final long avgLatencyMillis;
+    private final long maxLatencyMillis;
+    private final CircuitBreaker.State breakerState;
+    private final long breakerOpenCount;
+    private final long breakerRejectedCount;
+
+    private HostMetrics(
+      String host,
+      int inFlight,
+      int queued,
+      long completed,
+      long failed,
+      long dropped,
+      long avgQueueMillis,
+      long avgLatencyMillis,
+      long maxLatencyMillis,
+      CircuitBreaker.State breakerState,
+      long breakerOpenCount,
+      long breakerRejectedCount
+    ) {
+      this.host = host;
+      this.inFlight = inFlight;
+      this.queued = queued;
+      this.completed = completed;
+      this.failed = failed;
+      this.dropped = dropped;
+      this.avgQueueMillis = avgQueueMillis;
+      this.avgLatencyMillis = avgLatencyMillis;
+      this.maxLatencyMillis = maxLatencyMillis;
+      this.breakerState = breakerState;
+      this.breakerOpenCount = breakerOpenCount;
+      this.breakerRejectedCount = breakerRejectedCount;
+    }
+
+    public String getHost() {
+      return host;
+    }
+
+    public int getInFlight() {
+      return inFlight;
+    }
+
+    public int getQueued() {
+      return queued;
+    }
+
+    public long getCompleted() {
+      return completed;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    public long getDropped() {
+      return dropped;
+    }
+
+    public long getAvgQueueMillis() {
+      return avgQueueMillis;
+    }
+
+    public long getAvgLatencyMillis() {
+      return avgLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+      return maxLatencyMillis;
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+      return breakerState;
+    }
+
+    public long getBreakerOpenCount() {
+      return breakerOpenCount;
+    }
+
+    public long getBreakerRejectedCount() {
+      return breakerRejectedCount;
+    }
+  }
+}
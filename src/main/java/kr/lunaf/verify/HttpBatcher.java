@@ -0,0 +1,160 @@
+package kr.lunaf.verify;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class HttpBatcher {
+  @FunctionalInterface
+  public interface Sender {
+    CompletableFuture<Boolean> send(
+      URI uri,
+      String method,
+      Map<String, String> headers,
+      String body,
+      Duration timeout,
+      boolean logResponse
+    );
+  }
+
+  private final Sender sender;
+  private final ScheduledExecutorService lingerExecutor;
+  private final Map<String, Batch> batches = new HashMap<>();
+
+  public HttpBatcher(Sender sender) {
+    this.sender = sender;
+    this.lingerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setName("lunaverifier-http-batch");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public CompletableFuture<Boolean> add(
+    URI uri,
+    String method,
+    Map<String, String> headers,
+    String body,
+    Duration timeout,
+    boolean logResponse,
+    int maxItems,
+    long maxLingerMillis
+  ) {
+    final String key = batchKey(uri, method, headers, timeout, logResponse);
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    Batch ready = null;
+    synchronized (batches) {
+      Batch batch = batches.get(key);
+      if (batch == null) {
+        batch = new Batch(uri, method, headers, timeout, logResponse);
+        batches.put(key, batch);
+        final Batch scheduled = batch;
+        batch.lingerTask = lingerExecutor.schedule(
+          () -> flush(key, scheduled),
+          Math.max(1L, maxLingerMillis),
+          TimeUnit.MILLISECONDS
+        );
+      }
+      batch.items.add(parseItem(body));
+      batch.waiters.add(result);
+      if (batch.items.size() >= Math.max(1, maxItems)) {
+        batches.remove(key);
+        batch.lingerTask.cancel(false);
+        ready = batch;
+      }
+    }
+    if (ready != null) {
+      send(ready);
+    }
+    return result;
+  }
+
+  public void shutdown() {
+    lingerExecutor.shutdownNow();
+    final Map<String, Batch> pending;
+    synchronized (batches) {
+      pending = new HashMap<>(batches);
+      batches.clear();
+    }
+    for (Batch batch : pending.values()) {
+      send(batch);
+    }
+  }
+
+  private void flush(String key, Batch expected) {
+    synchronized (batches) {
+      if (batches.get(key) != expected) {
+        return;
+      }
+      batches.remove(key);
+    }
+    send(expected);
+  }
+
+  private void send(Batch batch) {
+    CompletableFuture<Boolean> sent;
+    try {
+      sent = sender.send(batch.uri, batch.method, batch.headers, batch.items.toString(), batch.timeout, batch.logResponse);
+    } catch (RuntimeException err) {
+      sent = CompletableFuture.failedFuture(err);
+    }
+    sent.whenComplete((ok, err) -> {
+      final boolean success = err == null && Boolean.TRUE.equals(ok);
+      for (CompletableFuture<Boolean> waiter : batch.waiters) {
+        waiter.complete(success);
+      }
+    });
+  }
+
+  private static String batchKey(URI uri, String method, Map<String, String> headers, Duration timeout, boolean logResponse) {
+    final Map<String, String> normalized = new TreeMap<>();
+    if (headers != null) {
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        normalized.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue());
+      }
+    }
+    return method + " " + uri + " " + normalized + " " + (timeout == null ? 0L : timeout.toMillis()) + " " + logResponse;
+  }
+
+  private static JsonElement parseItem(String body) {
+    try {
+      return JsonParser.parseString(body);
+    } catch (Exception err) {
+      return new JsonPrimitive(body);
+    }
+  }
+
+  private static final class Batch {
+    private final URI uri;
+    private final String method;
+    private final Map<String, String> headers;
+    private final Duration timeout;
+    private final boolean logResponse;
+    private final JsonArray items = new JsonArray();
+    private final List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+    private ScheduledFuture<?> lingerTask;
+
+    private Batch(URI uri, String method, Map<String, String> headers, Duration timeout, boolean logResponse) {
+      this.uri = uri;
+      this.method = method;
+      this.headers = headers;
+      this.timeout = timeout;
+      this.logResponse = logResponse;
+    }
+  }
+}
@@ -0,0 +1,598 @@
+package kr.lunaf.verify;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class HttpOutbox {
+  private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+  private static final Pattern CREDENTIAL_HEADER = Pattern.compile(
+    "authorization|proxy-authorization|cookie|x-api-key|.*(token|secret).*",
+    Pattern.CASE_INSENSITIVE
+  );
+  private static final String DEAD_LETTER_FILE = "dead-letter.log";
+  private static final long MAX_SEGMENT_BYTES = 1024L * 1024L;
+  private static final long DRAIN_INTERVAL_MILLIS = 1000L;
+
+  private final Logger logger;
+  private final Path directory;
+  private final HttpActionEngine engine;
+  private final EgressPolicy egressPolicy;
+  private final int maxAttempts;
+  private final long backoffBaseMillis;
+  private final long backoffMaxMillis;
+  private final int maxItems;
+  private final int maxInFlightPerHost;
+  private final Map<String, OutboxItem> items = new LinkedHashMap<>();
+  private final TreeMap<Long, Integer> liveBySegment = new TreeMap<>();
+  private final Map<String, Integer> inFlightByHost = new HashMap<>();
+  private final ScheduledExecutorService drainExecutor;
+  private BufferedWriter activeWriter;
+  private long activeSegment;
+  private long activeBytes;
+  private int deadLetterCount;
+
+  public HttpOutbox(
+    Logger logger,
+    File directory,
+    HttpActionEngine engine,
+    EgressPolicy egressPolicy,
+    int maxAttempts,
+    long backoffBaseMillis,
+    long backoffMaxMillis,
+    int maxItems,
+    int maxInFlightPerHost
+  ) {
+    this.logger = logger;
+    this.directory = directory.toPath();
+    this.engine = engine;
+    this.egressPolicy = egressPolicy;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.backoffBaseMillis = Math.max(100L, backoffBaseMillis);
+    this.backoffMaxMillis = Math.max(this.backoffBaseMillis, backoffMaxMillis);
+    this.maxItems = Math.max(1, maxItems);
+    this.maxInFlightPerHost = Math.max(1, maxInFlightPerHost);
+    this.drainExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setName("lunaverifier-outbox");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public synchronized void start() {
+    try {
+      Files.createDirectories(directory);
+      load();
+      openSegment(activeSegment + 1);
+      compact();
+      deadLetterRedacted();
+    } catch (IOException err) {
+      logger.warning("Failed to open http outbox: " + err.getMessage());
+      return;
+    }
+    if (!items.isEmpty()) {
+      logger.info("Loaded " + items.size() + " pending http_request(s) from outbox.");
+    }
+    drainExecutor.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    drainExecutor.shutdownNow();
+    synchronized (this) {
+      closeWriter();
+    }
+  }
+
+  public boolean enqueue(URI uri, String method, Map<String, String> headers, String body, Duration timeout, String error) {
+    final OutboxItem item = new OutboxItem(
+      UUID.randomUUID().toString(),
+      uri.toString(),
+      method,
+      headers == null ? Map.of() : new LinkedHashMap<>(headers),
+      body,
+      timeout == null ? 0L : timeout.toMillis(),
+      1,
+      0L,
+      error
+    );
+    item.nextAttemptAt = System.currentTimeMillis() + backoffMillis(item.attempts);
+    synchronized (this) {
+      if (activeWriter == null) {
+        return false;
+      }
+      if (items.size() >= maxItems) {
+        logger.warning("http outbox full; dropping request to " + uri);
+        return false;
+      }
+      return writeItem(item);
+    }
+  }
+
+  public synchronized int size() {
+    return items.size();
+  }
+
+  public synchronized int getDeadLetterCount() {
+    return deadLetterCount;
+  }
+
+  public int replayDeadLetters() {
+    final Path deadLetter = directory.resolve(DEAD_LETTER_FILE);
+    synchronized (this) {
+      if (activeWriter == null || !Files.exists(deadLetter)) {
+        return 0;
+      }
+      int replayed = 0;
+      final List<String> remaining = new ArrayList<>();
+      try (BufferedReader reader = Files.newBufferedReader(deadLetter, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.isBlank()) {
+            continue;
+          }
+          final OutboxItem item = OutboxItem.fromJson(parseLine(line));
+          if (item == null) {
+            continue;
+          }
+          if (items.size() >= maxItems) {
+            remaining.add(line);
+            continue;
+          }
+          item.attempts = 0;
+          item.nextAttemptAt = System.currentTimeMillis();
+          if (writeItem(item)) {
+            replayed++;
+          } else {
+            remaining.add(line);
+          }
+        }
+      } catch (IOException err) {
+        logger.warning("Failed to replay http outbox dead letters: " + err.getMessage());
+        return replayed;
+      }
+      try {
+        final Path temp = deadLetter.resolveSibling(DEAD_LETTER_FILE + ".tmp");
+        Files.write(temp, remaining, StandardCharsets.UTF_8);
+        try {
+          Files.move(temp, deadLetter, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException err) {
+          Files.move(temp, deadLetter, StandardCopyOption.REPLACE_EXISTING);
+        }
+        deadLetterCount = remaining.size();
+      } catch (IOException err) {
+        logger.warning("Failed to rewrite http outbox dead letters: " + err.getMessage());
+      }
+      if (!remaining.isEmpty()) {
+        logger.warning(remaining.size() + " dead letter(s) kept; outbox is full or could not be written.");
+      }
+      return replayed;
+    }
+  }
+
+  private void drain() {
+    final List<OutboxItem> due = new ArrayList<>();
+    synchronized (this) {
+      final long now = System.currentTimeMillis();
+      for (OutboxItem item : items.values()) {
+        if (item.inFlight || item.nextAttemptAt > now) {
+          continue;
+        }
+        final String host = item.host();
+        final int inFlight = inFlightByHost.getOrDefault(host, 0);
+        if (inFlight >= maxInFlightPerHost) {
+          continue;
+        }
+        inFlightByHost.put(host, inFlight + 1);
+        item.inFlight = true;
+        due.add(item);
+      }
+    }
+    for (OutboxItem item : due) {
+      final HttpRequest request;
+      try {
+        request = item.toRequest();
+      } catch (Exception err) {
+        onResult(item, -1, err);
+        continue;
+      }
+      final EgressPolicy.Verdict verdict = egressPolicy == null
+        ? EgressPolicy.Verdict.ALLOWED
+        : egressPolicy.check(request.uri());
+      if (verdict != EgressPolicy.Verdict.ALLOWED) {
+        onBlocked(item, verdict);
+        continue;
+      }
+      engine.submit(request, HttpResponse.BodyHandlers.discarding())
+        .whenComplete((response, err) -> onResult(item, response == null ? -1 : response.statusCode(), err));
+    }
+  }
+
+  private void onResult(OutboxItem item, int status, Throwable err) {
+    final Throwable cause = unwrap(err);
+    synchronized (this) {
+      item.inFlight = false;
+      inFlightByHost.computeIfPresent(item.host(), (host, count) -> count <= 1 ? null : count - 1);
+      if (!items.containsKey(item.id) || activeWriter == null) {
+        return;
+      }
+      if (cause == null && !isRetryableStatus(status)) {
+        if (status >= 400) {
+          item.attempts++;
+          item.lastError = "HTTP " + status;
+          deadLetter(item);
+        } else {
+          writeAck(item);
+        }
+        return;
+      }
+      item.lastError = cause == null ? "HTTP " + status : String.valueOf(cause.getMessage());
+      if (!(cause instanceof RejectedExecutionException)) {
+        item.attempts++;
+      }
+      if (item.attempts >= maxAttempts) {
+        deadLetter(item);
+        return;
+      }
+      item.nextAttemptAt = System.currentTimeMillis() + backoffMillis(item.attempts);
+      writeItem(item);
+    }
+  }
+
+  private void onBlocked(OutboxItem item, EgressPolicy.Verdict verdict) {
+    synchronized (this) {
+      item.inFlight = false;
+      inFlightByHost.computeIfPresent(item.host(), (host, count) -> count <= 1 ? null : count - 1);
+      if (!items.containsKey(item.id) || activeWriter == null) {
+        return;
+      }
+      item.lastError = "egress " + verdict.name().toLowerCase(Locale.ROOT);
+      deadLetter(item);
+    }
+  }
+
+  public static boolean isRetryableStatus(int status) {
+    return status == 408 || status == 429 || status >= 500;
+  }
+
+  private long backoffMillis(int attempts) {
+    final int shift = Math.min(30, Math.max(0, attempts - 1));
+    final long ceiling = Math.min(backoffMaxMillis, backoffBaseMillis << shift);
+    return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+  }
+
+  private void deadLetter(OutboxItem item) {
+    try {
+      Files.writeString(
+        directory.resolve(DEAD_LETTER_FILE),
+        item.toJson().toString() + "\n",
+        StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND
+      );
+      deadLetterCount++;
+    } catch (IOException err) {
+      logger.warning("Failed to write http outbox dead letter: " + err.getMessage());
+      return;
+    }
+    logger.warning("http_request gave up after " + item.attempts + " attempt(s): " + item.url + " (" + item.lastError + ")");
+    writeAck(item);
+  }
+
+  private boolean writeItem(OutboxItem item) {
+    final JsonObject record = item.toJson();
+    record.addProperty("op", "put");
+    if (!append(record)) {
+      return false;
+    }
+    final OutboxItem previous = items.put(item.id, item);
+    if (previous != null) {
+      release(previous.segment);
+    }
+    item.segment = activeSegment;
+    liveBySegment.merge(activeSegment, 1, Integer::sum);
+    return true;
+  }
+
+  private void writeAck(OutboxItem item) {
+    final JsonObject record = new JsonObject();
+    record.addProperty("op", "ack");
+    record.addProperty("id", item.id);
+    append(record);
+    if (items.remove(item.id) != null) {
+      release(item.segment);
+    }
+  }
+
+  private void release(long segment) {
+    liveBySegment.computeIfPresent(segment, (key, count) -> count <= 1 ? 0 : count - 1);
+    compact();
+  }
+
+  private boolean append(JsonObject record) {
+    try {
+      final String line = record.toString() + "\n";
+      activeWriter.write(line);
+      activeWriter.flush();
+      activeBytes += line.getBytes(StandardCharsets.UTF_8).length;
+      if (activeBytes >= MAX_SEGMENT_BYTES) {
+        closeWriter();
+        openSegment(activeSegment + 1);
+        compact();
+      }
+      return true;
+    } catch (IOException err) {
+      logger.warning("Failed to write http outbox: " + err.getMessage());
+      return false;
+    }
+  }
+
+  // Segments are only removed oldest-first so acks never outlive the puts they cancel.
+  private void compact() {
+    while (!liveBySegment.isEmpty()) {
+      final Map.Entry<Long, Integer> oldest = liveBySegment.firstEntry();
+      if (oldest.getKey() >= activeSegment || oldest.getValue() > 0) {
+        return;
+      }
+      liveBySegment.pollFirstEntry();
+      try {
+        Files.deleteIfExists(segmentPath(oldest.getKey()));
+      } catch (IOException err) {
+        return;
+      }
+    }
+  }
+
+  private void load() throws IOException {
+    final TreeMap<Long, Path> segments = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.log")) {
+      for (Path path : stream) {
+        final Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        if (matcher.matches()) {
+          segments.put(Long.parseLong(matcher.group(1)), path);
+        }
+      }
+    }
+    for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+      liveBySegment.put(segment.getKey(), 0);
+      activeSegment = segment.getKey();
+      try (BufferedReader reader = Files.newBufferedReader(segment.getValue(), StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          final JsonObject record = parseLine(line);
+          if (record == null) {
+            continue;
+          }
+          final String op = record.has("op") ? record.get("op").getAsString() : "";
+          if ("ack".equals(op) && record.has("id")) {
+            items.remove(record.get("id").getAsString());
+          } else if ("put".equals(op)) {
+            final OutboxItem item = OutboxItem.fromJson(record);
+            if (item != null) {
+              item.segment = segment.getKey();
+              items.put(item.id, item);
+            }
+          }
+        }
+      }
+    }
+    for (OutboxItem item : items.values()) {
+      liveBySegment.merge(item.segment, 1, Integer::sum);
+    }
+    final Path deadLetter = directory.resolve(DEAD_LETTER_FILE);
+    if (Files.exists(deadLetter)) {
+      try (Stream<String> lines = Files.lines(deadLetter, StandardCharsets.UTF_8)) {
+        deadLetterCount = (int) lines.filter(line -> !line.isBlank()).count();
+      }
+    }
+  }
+
+  // Credential headers are never written to disk, so restored items that needed them cannot be sent as-is.
+  private void deadLetterRedacted() {
+    for (OutboxItem item : new ArrayList<>(items.values())) {
+      if (item.redacted) {
+        item.lastError = "credential headers not persisted";
+        deadLetter(item);
+      }
+    }
+  }
+
+  private void openSegment(long segment) throws IOException {
+    activeSegment = segment;
+    activeBytes = 0L;
+    activeWriter = Files.newBufferedWriter(
+      segmentPath(segment),
+      StandardCharsets.UTF_8,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.APPEND
+    );
+    liveBySegment.putIfAbsent(segment, 0);
+  }
+
+  private void closeWriter() {
+    if (activeWriter == null) {
+      return;
+    }
+    try {
+      activeWriter.close();
+    } catch (IOException err) {
+      // ignore
+    }
+    activeWriter = null;
+  }
+
+  private Path segmentPath(long segment) {
+    return directory.resolve("segment-" + segment + ".log");
+  }
+
+  private static JsonObject parseLine(String line) {
+    if (line == null || line.isBlank()) {
+      return null;
+    }
+    try {
+      final JsonElement element = JsonParser.parseString(line);
+      return element.isJsonObject() ? element.getAsJsonObject() : null;
+    } catch (Exception err) {
+      return null;
+    }
+  }
+
+  private static Throwable unwrap(Throwable err) {
+    Throwable cause = err;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  private static final class OutboxItem {
+    private final String id;
+    private final String url;
+    private final String method;
+    private final Map<String, String> headers;
+    private final String body;
+    private final long timeoutMillis;
+    private int attempts;
+    private long nextAttemptAt;
+    private String lastError;
+    private long segment;
+    private boolean inFlight;
+    private boolean redacted;
+
+    private OutboxItem(
+      String id,
+      String url,
+      String method,
+      Map<String, String> headers,
+      String body,
+      long timeoutMillis,
+      int attempts,
+      long nextAttemptAt,
+      String lastError
+    ) {
+      this.id = id;
+      this.url = url;
+      this.method = method;
+      this.headers = headers;
+      this.body = body;
+      this.timeoutMillis = timeoutMillis;
+      this.attempts = attempts;
+      this.nextAttemptAt = nextAttemptAt;
+      this.lastError = lastError;
+    }
+
+    private String host() {
+      final URI uri = URI.create(url);
+      return uri.getHost() == null ? "" : uri.getHost() + ":" + uri.getPort();
+    }
+
+    private HttpRequest toRequest() {
+      final HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url));
+      if (timeoutMillis > 0) {
+        builder.timeout(Duration.ofMillis(timeoutMillis));
+      }
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        builder.header(header.getKey(), header.getValue());
+      }
+      if (body != null) {
+        builder.method(method, HttpRequest.BodyPublishers.ofString(body));
+      } else {
+        builder.method(method, HttpRequest.BodyPublishers.noBody());
+      }
+      return builder.build();
+    }
+
+    private JsonObject toJson() {
+      final JsonObject obj = new JsonObject();
+      obj.addProperty("id", id);
+      obj.addProperty("url", url);
+      obj.addProperty("method", method);
+      final JsonObject headerObj = new JsonObject();
+      final JsonArray redactedHeaders = new JsonArray();
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        if (CREDENTIAL_HEADER.matcher(header.getKey()).matches()) {
+          redactedHeaders.add(header.getKey());
+        } else {
+          headerObj.addProperty(header.getKey(), header.getValue());
+        }
+      }
+      obj.add("headers", headerObj);
+      if (redacted || redactedHeaders.size() > 0) {
+        obj.add("redacted_headers", redactedHeaders);
+      }
+      if (body != null) {
+        obj.addProperty("body", body);
+      }
+      obj.addProperty("timeout_ms", timeoutMillis);
+      obj.addProperty("attempts", attempts);
+      obj.addProperty("next_attempt_at", nextAttemptAt);
+      if (lastError != null) {
+        obj.addProperty("last_error", lastError);
+      }
+      return obj;
+    }
+
+    private static OutboxItem fromJson(JsonObject obj) {
+      if (obj == null || !obj.has("id") || !obj.has("url") || !obj.has("method")) {
+        return null;
+      }
+      try {
+        final Map<String, String> headers = new LinkedHashMap<>();
+        if (obj.has("headers") && obj.get("headers").isJsonObject()) {
+          for (Map.Entry<String, JsonElement> header : obj.getAsJsonObject("headers").entrySet()) {
+            headers.put(header.getKey(), header.getValue().getAsString());
+          }
+        }
+        final OutboxItem item = new OutboxItem(
+          obj.get("id").getAsString(),
+          obj.get("url").getAsString(),
+          obj.get("method").getAsString(),
+          headers,
+          obj.has("body") && !obj.get("body").isJsonNull() ? obj.get("body").getAsString() : null,
+          obj.has("timeout_ms") ? obj.get("timeout_ms").getAsLong() : 0L,
+          obj.has("attempts") ? obj.get("attempts").getAsInt() : 0,
+          obj.has("next_attempt_at") ? obj.get("next_attempt_at").getAsLong() : 0L,
+          obj.has("last_error") && !obj.get("last_error").isJsonNull() ? obj.get("last_error").getAsString() : null
+        );
+        item.redacted = obj.has("redacted_headers");
+        return item;
+      } catch (Exception err) {
+        return null;
+      }
+    }
+  }
+}
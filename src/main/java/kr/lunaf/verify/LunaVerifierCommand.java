@@ -0,0 +1,115 @@
+package kr.lunaf.verify;
+
+import java.util.List;
+import java.util.Locale;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+public class LunaVerifierCommand implements CommandExecutor {
+  private final LunaVerifierPlugin plugin;
+
+  public LunaVerifierCommand(LunaVerifierPlugin plugin) {
+    this.plugin = plugin;
+  }
+
+  @Override
+  public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    if (args.length == 0) {
+      sender.sendMessage("Usage: /" + label + " <http|handlers|ratelimit|outbox [replay]>");
+      return true;
+    }
+    switch (args[0].toLowerCase(Locale.ROOT)) {
+      case "http":
+        showHttpMetrics(sender);
+        return true;
+      case "handlers":
+        showHandlerMetrics(sender);
+        return true;
+      case "ratelimit":
+        showRateLimitMetrics(sender);
+        return true;
+      case "outbox":
+        handleOutbox(sender, args.length > 1 ? args[1] : "");
+        return true;
+      default:
+        sender.sendMessage("Unknown subcommand: " + args[0]);
+        return true;
+    }
+  }
+
+  private void handleOutbox(CommandSender sender, String action) {
+    final ActionExecutor executor = plugin.getActionExecutor();
+    final HttpOutbox outbox = executor == null ? null : executor.getHttpOutbox();
+    if (outbox == null) {
+      sender.sendMessage("http outbox is disabled.");
+      return;
+    }
+    if ("replay".equalsIgnoreCase(action)) {
+      final int replayed = outbox.replayDeadLetters();
+      sender.sendMessage("Replayed " + replayed + " dead-lettered http_request(s).");
+      return;
+    }
+    sender.sendMessage("outbox pending=" + outbox.size() + " dead_letter=" + outbox.getDeadLetterCount());
+  }
+
+  private void showRateLimitMetrics(CommandSender sender) {
+    final ActionExecutor executor = plugin.getActionExecutor();
+    if (executor == null) {
+      sender.sendMessage("LunaVerifier is not running.");
+      return;
+    }
+    final ActionRateLimiter limiter = executor.getRateLimiter();
+    if (!limiter.isEnabled()) {
+      sender.sendMessage("Action rate limiting is disabled.");
+      return;
+    }
+    sender.sendMessage("ratelimit pending=" + limiter.getPendingCount()
+      + " deferred=" + limiter.getDeferredCount()
+      + " coalesced=" + limiter.getCoalescedCount()
+      + " dropped=" + limiter.getDroppedCount());
+  }
+
+  private void showHandlerMetrics(CommandSender sender) {
+    final ActionExecutor executor = plugin.getActionExecutor();
+    if (executor == null) {
+      sender.sendMessage("LunaVerifier is not running.");
+      return;
+    }
+    final List<String> metrics = executor.getActionHandlerMetrics();
+    if (metrics.isEmpty()) {
+      sender.sendMessage("No custom action handlers registered.");
+      return;
+    }
+    for (String line : metrics) {
+      sender.sendMessage(line);
+    }
+  }
+
+  private void showHttpMetrics(CommandSender sender) {
+    final ActionExecutor executor = plugin.getActionExecutor();
+    if (executor == null) {
+      sender.sendMessage("LunaVerifier is not running.");
+      return;
+    }
+    final List<HttpActionEngine.HostMetrics> metrics = executor.getHttpMetrics();
+    if (metrics.isEmpty()) {
+      sender.sendMessage("No http_request activity yet.");
+      return;
+    }
+    for (HttpActionEngine.HostMetrics host : metrics) {
+      sender.sendMessage(host.getHost()
+        + " in_flight=" + host.getInFlight()
+        + " queued=" + host.getQueued()
+        + " ok=" + host.getCompleted()
+        + " failed=" + host.getFailed()
+        + " dropped=" + host.getDropped()
+        + " avg_queue_ms=" + host.getAvgQueueMillis()
+        + " avg_ms=" + host.getAvgLatencyMillis()
+        + " max_ms=" + host.getMaxLatencyMillis()
+        + " breaker=" + host.getBreakerState()
+        + " breaker_opens=" + host.getBreakerOpenCount()
+        + " breaker_rejected=" + host.getBreakerRejectedCount());
+    }
+  }
+}
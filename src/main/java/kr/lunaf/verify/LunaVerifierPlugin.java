@@ -10,16 +10,15 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import kr.lunaf.verify.api.LunaVerifierActionHandler;
 import kr.lunaf.verify.api.LunaVerifierApi;
+import kr.lunaf.verify.api.LunaVerifierAsyncActionHandler;
+import kr.lunaf.verify.api.LunaVerifierHandlerOptions;
 import kr.lunaf.verify.api.LunaVerifierPayload;
 import kr.lunaf.verify.event.LunaVerifierActionsEvent;
 import kr.lunaf.verify.event.LunaVerifierDuplicateEvent;
@@ -28,12 +27,14 @@ import kr.lunaf.verify.event.LunaVerifierPacketReceivedEvent;
 import kr.lunaf.verify.event.LunaVerifierPacketRejectedEvent;
 import kr.lunaf.verify.event.LunaVerifierPayloadVerifiedEvent;
 import org.bukkit.Bukkit;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
   private static final String HMAC_ALGO = "HmacSHA256";
   private static final String CACHE_FILE = "processed-events.json";
+  private static final String DEFERRED_ACTIONS_FILE = "deferred-actions.json";
   private static LunaVerifierPlugin instance;
 
   private final Gson gson = new Gson();
@@ -42,10 +43,13 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
   private ActionExecutor actionExecutor;
   private UpdateService updateService;
   private DiscordSyncService discordSyncService;
+  private OnlinePlayerIndex playerIndex;
+  private DeferredActionQueue deferredActions;
   private String serverSecret;
   private boolean requireSignature;
   private long timestampSkewSeconds;
-  private final ConcurrentMap<String, DiscordSyncEntry> discordSyncCache = new ConcurrentHashMap<>();
+  private final DiscordSyncCache discordSyncCache = new DiscordSyncCache();
+  private DiscordSyncEventDispatcher syncEventDispatcher;
 
   @Override
   public void onEnable() {
@@ -73,7 +77,22 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     deduplicator = new EventDeduplicator(new File(getDataFolder(), CACHE_FILE), ttlSeconds);
     deduplicator.load();
 
-    actionExecutor = new ActionExecutor(this, getConfig());
+    playerIndex = new OnlinePlayerIndex();
+    getServer().getPluginManager().registerEvents(playerIndex, this);
+    playerIndex.seedOnlinePlayers();
+
+    deferredActions = new DeferredActionQueue(
+      this,
+      new File(getDataFolder(), DEFERRED_ACTIONS_FILE),
+      getConfig().getLong("deferred-actions-ttl-seconds", 604800L),
+      getConfig().getInt("deferred-actions-max-per-player", 50),
+      getConfig().getInt("deferred-actions-max-total", 10000),
+      getConfig().getLong("deferred-actions-flush-budget-ms", 5L)
+    );
+    deferredActions.load();
+    getServer().getPluginManager().registerEvents(deferredActions, this);
+
+    actionExecutor = new ActionExecutor(this, getConfig(), playerIndex, deferredActions);
 
     final int tcpWorkerThreads = Math.max(1, getConfig().getInt("tcp-worker-threads", 8));
     final int tcpWorkerQueue = Math.max(1, getConfig().getInt("tcp-worker-queue-size", 100));
@@ -93,9 +112,19 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     updateService = new UpdateService(this, getConfig());
     updateService.start();
 
+    syncEventDispatcher = new DiscordSyncEventDispatcher(
+      this,
+      playerIndex,
+      getConfig().getLong("sync-event-budget-ms", 2L)
+    );
     discordSyncService = new DiscordSyncService(this, getConfig());
     discordSyncService.start();
 
+    final PluginCommand command = getCommand("lunaverifier");
+    if (command != null) {
+      command.setExecutor(new LunaVerifierCommand(this));
+    }
+
     tryEnableSkriptAddon();
   }
 
@@ -112,18 +141,28 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     if (actionExecutor != null) {
       actionExecutor.shutdown();
     }
+    if (deferredActions != null) {
+      deferredActions.save();
+    }
     if (updateService != null) {
       updateService.stop();
     }
     if (discordSyncService != null) {
       discordSyncService.stop();
     }
+    if (playerIndex != null) {
+      playerIndex.clear();
+    }
   }
 
   public static LunaVerifierPlugin getInstance() {
     return instance;
   }
 
+  public ActionExecutor getActionExecutor() {
+    return actionExecutor;
+  }
+
   public String handlePacket(String rawLine) {
     final boolean async = !Bukkit.isPrimaryThread();
     Bukkit.getPluginManager().callEvent(new LunaVerifierPacketReceivedEvent(async, rawLine));
@@ -197,19 +236,21 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
 
     handleDiscordSyncEvent(eventType, payload);
 
-    JsonArray actions = new JsonArray();
+    final ActionPlan plan;
     if (payload.has("actions") && payload.get("actions").isJsonArray()) {
-      actions = payload.getAsJsonArray("actions");
+      plan = ActionPlan.compile(payload.getAsJsonArray("actions"), getLogger());
+    } else {
+      plan = actionExecutor.getEventActionPlan(eventType);
     }
 
     Bukkit.getPluginManager().callEvent(new LunaVerifierPayloadVerifiedEvent(async, parsedPayload, tokens));
-    final LunaVerifierActionsEvent actionsEvent = new LunaVerifierActionsEvent(async, parsedPayload, actions);
+    final LunaVerifierActionsEvent actionsEvent = new LunaVerifierActionsEvent(async, parsedPayload, plan.getSource());
     Bukkit.getPluginManager().callEvent(actionsEvent);
     if (actionsEvent.isCancelled()) {
       return "ok";
     }
 
-    actionExecutor.execute(actions, tokens, eventType == null ? "unknown" : eventType, parsedPayload);
+    actionExecutor.execute(plan, tokens, eventType == null ? "unknown" : eventType, parsedPayload);
 
     return "ok";
   }
@@ -297,6 +338,26 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     actionExecutor.registerActionHandler(type, handler);
   }
 
+  @Override
+  public void registerActionHandler(String type, LunaVerifierActionHandler handler, LunaVerifierHandlerOptions options) {
+    if (actionExecutor == null) {
+      return;
+    }
+    actionExecutor.registerActionHandler(type, handler, options);
+  }
+
+  @Override
+  public void registerAsyncActionHandler(
+    String type,
+    LunaVerifierAsyncActionHandler handler,
+    LunaVerifierHandlerOptions options
+  ) {
+    if (actionExecutor == null) {
+      return;
+    }
+    actionExecutor.registerAsyncActionHandler(type, handler, options);
+  }
+
   @Override
   public void unregisterActionHandler(String type) {
     if (actionExecutor == null) {
@@ -326,71 +387,109 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     if (actionExecutor == null) {
       return;
     }
-    actionExecutor.execute(actions, tokens, eventType, payload);
+    actionExecutor.execute(actions == null ? null : actions.deepCopy(), tokens, eventType, payload);
   }
 
   @Override
   public LunaVerifierPayload buildPayload(JsonObject payload) {
-    return LunaVerifierPayload.fromJson(payload);
+    return LunaVerifierPayload.fromJson(payload == null ? null : payload.deepCopy());
   }
 
   public boolean isDiscordSync(Player player) {
     if (player == null) {
       return false;
     }
-    return discordSyncCache.containsKey(player.getUniqueId().toString());
+    return discordSyncCache.contains(player.getUniqueId());
   }
 
   public DiscordSyncEntry getDiscordSyncEntry(Player player) {
     if (player == null) {
       return null;
     }
-    return discordSyncCache.get(player.getUniqueId().toString());
+    return discordSyncCache.get(player.getUniqueId());
+  }
+
+  @Override
+  public DiscordSyncEntry getDiscordSyncEntry(UUID uuid) {
+    return discordSyncCache.get(uuid);
+  }
+
+  @Override
+  public DiscordSyncEntry getDiscordSyncEntryByDiscordId(String discordUserId) {
+    return discordSyncCache.getByDiscordId(discordUserId);
   }
 
+  @Override
+  public DiscordSyncEntry getDiscordSyncEntryByIgn(String ign) {
+    return discordSyncCache.getByIgn(ign);
+  }
+
+  @Override
+  public java.util.List<DiscordSyncEntry> getDiscordSyncEntriesByGuild(String guildId) {
+    return discordSyncCache.getByGuild(guildId);
+  }
+
+  @Override
   public java.util.List<DiscordSyncEntry> getDiscordSyncList() {
-    return Collections.unmodifiableList(new ArrayList<>(discordSyncCache.values()));
+    return discordSyncCache.values();
+  }
+
+  public DiscordSyncSnapshot getDiscordSyncSnapshot() {
+    return discordSyncCache.snapshot();
   }
 
   public void applySyncSnapshot(java.util.List<DiscordSyncEntry> entries, boolean fireEvents) {
     if (entries == null) {
       return;
     }
-    final Map<String, DiscordSyncEntry> next = new HashMap<>();
+    final CompactSyncStore.Builder next = new CompactSyncStore.Builder();
     for (DiscordSyncEntry entry : entries) {
-      if (entry == null) {
-        continue;
-      }
-      final String normalizedUuid = normalizeUuid(entry.getMcUuid());
-      if (normalizedUuid == null) {
-        continue;
-      }
-      next.put(normalizedUuid, entry);
+      next.add(normalizeEntry(entry));
     }
+    applySyncSnapshot(next, fireEvents);
+  }
 
-    for (Map.Entry<String, DiscordSyncEntry> existing : new HashMap<>(discordSyncCache).entrySet()) {
-      if (!next.containsKey(existing.getKey())) {
-        discordSyncCache.remove(existing.getKey());
-        if (fireEvents && existing.getValue() != null) {
-          dispatchDiscordSyncEvent(DiscordSyncAction.REVOKED, existing.getValue());
-        }
-      }
+  void applySyncSnapshot(CompactSyncStore.Builder next, boolean fireEvents) {
+    if (next == null) {
+      return;
+    }
+    final java.util.List<DiscordSyncChange> changes = discordSyncCache.replaceAll(next, fireEvents);
+    if (syncEventDispatcher != null) {
+      syncEventDispatcher.submit(changes, true);
     }
+  }
+
+  DiscordSyncCache getDiscordSyncCache() {
+    return discordSyncCache;
+  }
 
-    for (Map.Entry<String, DiscordSyncEntry> incoming : next.entrySet()) {
-      final DiscordSyncEntry existing = discordSyncCache.get(incoming.getKey());
-      if (existing == null) {
-        discordSyncCache.put(incoming.getKey(), incoming.getValue());
-        if (fireEvents) {
-          dispatchDiscordSyncEvent(DiscordSyncAction.SYNCED, incoming.getValue());
+  public void applySyncDelta(
+    java.util.List<DiscordSyncEntry> upserts,
+    java.util.List<String> revokedUuids,
+    boolean fireEvents
+  ) {
+    final java.util.List<String> revoked = new ArrayList<>();
+    if (revokedUuids != null) {
+      for (String rawUuid : revokedUuids) {
+        final String normalizedUuid = normalizeUuid(rawUuid);
+        if (normalizedUuid != null) {
+          revoked.add(normalizedUuid);
         }
-      } else if (isEntryDifferent(existing, incoming.getValue())) {
-        discordSyncCache.put(incoming.getKey(), incoming.getValue());
-        if (fireEvents) {
-          dispatchDiscordSyncEvent(DiscordSyncAction.REVERIFIED, incoming.getValue());
+      }
+    }
+    final java.util.List<DiscordSyncEntry> upserted = new ArrayList<>();
+    if (upserts != null) {
+      for (DiscordSyncEntry entry : upserts) {
+        final DiscordSyncEntry normalized = normalizeEntry(entry);
+        if (normalized != null) {
+          upserted.add(normalized);
         }
       }
     }
+    final java.util.List<DiscordSyncChange> changes = discordSyncCache.applyDelta(upserted, revoked, fireEvents);
+    if (syncEventDispatcher != null) {
+      syncEventDispatcher.submit(changes, false);
+    }
   }
 
   private void handleDiscordSyncEvent(String eventType, JsonObject payload) {
@@ -417,13 +516,13 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
       null
     );
 
-    if (action == DiscordSyncAction.REVOKED) {
-      discordSyncCache.remove(normalizedUuid);
-    } else {
-      discordSyncCache.put(normalizedUuid, entry);
-    }
+    final DiscordSyncEntry previous = action == DiscordSyncAction.REVOKED
+      ? discordSyncCache.remove(normalizedUuid)
+      : discordSyncCache.put(entry);
 
-    dispatchDiscordSyncEvent(action, entry);
+    if (syncEventDispatcher != null) {
+      syncEventDispatcher.submit(new DiscordSyncChange(action, entry, previous));
+    }
   }
 
   private DiscordSyncAction mapDiscordSyncAction(String eventType) {
@@ -439,56 +538,38 @@ public class LunaVerifierPlugin extends JavaPlugin implements LunaVerifierApi {
     return null;
   }
 
-  private String normalizeUuid(String rawUuid) {
-    if (rawUuid == null || rawUuid.isBlank()) {
+  private DiscordSyncEntry normalizeEntry(DiscordSyncEntry entry) {
+    if (entry == null) {
       return null;
     }
-    try {
-      return UUID.fromString(rawUuid.trim()).toString();
-    } catch (IllegalArgumentException err) {
+    final String normalizedUuid = normalizeUuid(entry.getMcUuid());
+    if (normalizedUuid == null) {
       return null;
     }
+    if (normalizedUuid.equals(entry.getMcUuid())) {
+      return entry;
+    }
+    return new DiscordSyncEntry(
+      normalizedUuid,
+      entry.getMcIgn(),
+      entry.getDiscordUserId(),
+      entry.getGuildId(),
+      entry.getOccurredAt(),
+      entry.getVerifiedAt()
+    );
   }
 
-  private Player findPlayerByUuid(String uuid) {
-    if (uuid == null || uuid.isBlank()) {
+  private String normalizeUuid(String rawUuid) {
+    if (rawUuid == null || rawUuid.isBlank()) {
       return null;
     }
     try {
-      return Bukkit.getPlayer(UUID.fromString(uuid));
+      return UUID.fromString(rawUuid.trim()).toString();
     } catch (IllegalArgumentException err) {
       return null;
     }
   }
 
-  private void dispatchDiscordSyncEvent(DiscordSyncAction action, DiscordSyncEntry entry) {
-    if (action == null || entry == null) {
-      return;
-    }
-    final String normalizedUuid = normalizeUuid(entry.getMcUuid());
-    final Player player = findPlayerByUuid(normalizedUuid);
-    runOnMainThread(() -> Bukkit.getPluginManager().callEvent(new DiscordSyncEvent(action, entry, player)));
-  }
-
-  private boolean isEntryDifferent(DiscordSyncEntry a, DiscordSyncEntry b) {
-    if (a == null || b == null) {
-      return true;
-    }
-    return !safeEquals(a.getDiscordUserId(), b.getDiscordUserId())
-      || !safeEquals(a.getMcIgn(), b.getMcIgn())
-      || !safeEquals(a.getGuildId(), b.getGuildId());
-  }
-
-  private boolean safeEquals(String a, String b) {
-    if (a == null && b == null) {
-      return true;
-    }
-    if (a == null || b == null) {
-      return false;
-    }
-    return a.equals(b);
-  }
-
   private void tryEnableSkriptAddon() {
     try {
       if (getServer().getPluginManager().getPlugin("Skript") == null) {
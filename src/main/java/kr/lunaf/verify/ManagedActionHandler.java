@@ -0,0 +1,171 @@
+package kr.lunaf.verify;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import kr.lunaf.verify.api.LunaVerifierActionContext;
+import kr.lunaf.verify.api.LunaVerifierAsyncActionHandler;
+import kr.lunaf.verify.api.LunaVerifierHandlerOptions;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public class ManagedActionHandler {
+  private final JavaPlugin plugin;
+  private final String type;
+  private final LunaVerifierAsyncActionHandler handler;
+  private final LunaVerifierHandlerOptions options;
+  private final ExecutorService executor;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+  public ManagedActionHandler(
+    JavaPlugin plugin,
+    String type,
+    LunaVerifierAsyncActionHandler handler,
+    LunaVerifierHandlerOptions options
+  ) {
+    this.plugin = plugin;
+    this.type = type;
+    this.handler = handler;
+    this.options = options == null ? LunaVerifierHandlerOptions.inline() : options;
+    switch (this.options.getExecution()) {
+      case ASYNC_POOL:
+        this.executor = new ThreadPoolExecutor(
+          this.options.getMaxConcurrency(),
+          this.options.getMaxConcurrency(),
+          0L,
+          TimeUnit.MILLISECONDS,
+          this.options.getQueueSize() > 0
+            ? new ArrayBlockingQueue<>(this.options.getQueueSize())
+            : new SynchronousQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("lunaverifier-handler-" + type);
+            thread.setDaemon(true);
+            return thread;
+          },
+          new ThreadPoolExecutor.AbortPolicy()
+        );
+        break;
+      case VIRTUAL_THREAD:
+        this.executor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("lunaverifier-handler-" + type + "-", 0).factory()
+        );
+        break;
+      default:
+        this.executor = null;
+        break;
+    }
+  }
+
+  public LunaVerifierHandlerOptions getOptions() {
+    return options;
+  }
+
+  public CompletableFuture<Void> invoke(Function<Boolean, LunaVerifierActionContext> contextFactory) {
+    final long startedAt = System.nanoTime();
+    final CompletableFuture<Void> result = new CompletableFuture<>();
+    Future<?> task = null;
+    switch (options.getExecution()) {
+      case MAIN_THREAD:
+        Bukkit.getScheduler().runTask(plugin, () -> runHandler(contextFactory.apply(false), result));
+        break;
+      case ASYNC_POOL:
+      case VIRTUAL_THREAD:
+        if (pending.get() >= options.getMaxConcurrency() + options.getQueueSize()) {
+          rejected.incrementAndGet();
+          result.completeExceptionally(new RejectedExecutionException("handler queue full for " + type));
+          return result;
+        }
+        pending.incrementAndGet();
+        result.whenComplete((ignored, err) -> pending.decrementAndGet());
+        try {
+          task = executor.submit(() -> runHandler(contextFactory.apply(true), result));
+        } catch (RejectedExecutionException err) {
+          rejected.incrementAndGet();
+          result.completeExceptionally(err);
+          return result;
+        }
+        break;
+      default:
+        runHandler(contextFactory.apply(!Bukkit.isPrimaryThread()), result);
+        break;
+    }
+    final Future<?> submitted = task;
+    final CompletableFuture<Void> bounded = options.getTimeoutMillis() > 0
+      ? result.orTimeout(options.getTimeoutMillis(), TimeUnit.MILLISECONDS)
+      : result;
+    return bounded.whenComplete((ignored, err) -> {
+      final long latency = System.nanoTime() - startedAt;
+      totalLatencyNanos.addAndGet(latency);
+      maxLatencyNanos.accumulateAndGet(latency, Math::max);
+      final Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+      if (cause == null) {
+        completed.incrementAndGet();
+      } else if (cause instanceof TimeoutException) {
+        timedOut.incrementAndGet();
+        if (submitted != null) {
+          submitted.cancel(true);
+        }
+        plugin.getLogger().warning("Action handler " + type + " timed out after " + options.getTimeoutMillis() + "ms");
+      } else {
+        failed.incrementAndGet();
+        plugin.getLogger().warning("Action handler " + type + " failed: " + cause.getMessage());
+      }
+    });
+  }
+
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  public String describeMetrics() {
+    final long done = completed.get() + failed.get() + timedOut.get();
+    return type
+      + " mode=" + options.getExecution()
+      + " pending=" + pending.get()
+      + " ok=" + completed.get()
+      + " failed=" + failed.get()
+      + " timeouts=" + timedOut.get()
+      + " rejected=" + rejected.get()
+      + " avg_ms=" + (done == 0 ? 0L : totalLatencyNanos.get() / done / 1_000_000L)
+      + " max_ms=" + maxLatencyNanos.get() / 1_000_000L;
+  }
+
+  private void runHandler(LunaVerifierActionContext context, CompletableFuture<Void> result) {
+    try {
+      final CompletableFuture<Void> future = handler.handle(context);
+      if (future == null) {
+        result.complete(null);
+        return;
+      }
+      future.whenComplete((ignored, err) -> {
+        if (err != null) {
+          result.completeExceptionally(err);
+        } else {
+          result.complete(null);
+        }
+      });
+    } catch (Throwable err) {
+      result.completeExceptionally(err);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package kr.lunaf.verify;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class OnlinePlayerIndex implements Listener {
+  private final ConcurrentMap<String, UUID> uuidsByName = new ConcurrentHashMap<>();
+  private final ConcurrentMap<UUID, Player> playersByUuid = new ConcurrentHashMap<>();
+
+  public void seedOnlinePlayers() {
+    for (Player player : Bukkit.getOnlinePlayers()) {
+      add(player);
+    }
+  }
+
+  public void clear() {
+    uuidsByName.clear();
+    playersByUuid.clear();
+  }
+
+  public boolean isOnline(String name) {
+    return getPlayer(name) != null;
+  }
+
+  public boolean isOnline(UUID uuid) {
+    return getPlayer(uuid) != null;
+  }
+
+  public Player getPlayer(String name) {
+    final String key = normalizeName(name);
+    if (key == null) {
+      return null;
+    }
+    final UUID uuid = uuidsByName.get(key);
+    return uuid == null ? null : playersByUuid.get(uuid);
+  }
+
+  public Player getPlayer(UUID uuid) {
+    if (uuid == null) {
+      return null;
+    }
+    return playersByUuid.get(uuid);
+  }
+
+  public UUID getUuid(String name) {
+    final String key = normalizeName(name);
+    if (key == null) {
+      return null;
+    }
+    return uuidsByName.get(key);
+  }
+
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onPlayerJoin(PlayerJoinEvent event) {
+    add(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerQuit(PlayerQuitEvent event) {
+    remove(event.getPlayer());
+  }
+
+  private void add(Player player) {
+    if (player == null) {
+      return;
+    }
+    final String key = normalizeName(player.getName());
+    final UUID uuid = player.getUniqueId();
+    if (key == null || uuid == null) {
+      return;
+    }
+    playersByUuid.put(uuid, player);
+    uuidsByName.put(key, uuid);
+  }
+
+  private void remove(Player player) {
+    if (player == null) {
+      return;
+    }
+    final UUID uuid = player.getUniqueId();
+    if (uuid != null) {
+      playersByUuid.remove(uuid);
+    }
+    final String key = normalizeName(player.getName());
+    if (key != null && uuid != null) {
+      uuidsByName.remove(key, uuid);
+    }
+  }
+
+  private static String normalizeName(String name) {
+    if (name == null || name.isBlank()) {
+      return null;
+    }
+    return name.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,141 @@
+package kr.lunaf.verify;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class SyncCacheSnapshot {
+  private static final int MAGIC = 0x4C565343;
+  private static final int FORMAT_VERSION = 2;
+
+  private final CompactSyncStore.Builder entries;
+  private final String cursor;
+  private final String etag;
+  private final String contentHash;
+  private final long savedAtMillis;
+
+  public SyncCacheSnapshot(
+    CompactSyncStore.Builder entries,
+    String cursor,
+    String etag,
+    String contentHash,
+    long savedAtMillis
+  ) {
+    this.entries = entries;
+    this.cursor = cursor;
+    this.etag = etag;
+    this.contentHash = contentHash;
+    this.savedAtMillis = savedAtMillis;
+  }
+
+  public static SyncCacheSnapshot load(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      final long savedAtMillis = in.readLong();
+      final String cursor = readNullable(in);
+      final String etag = readNullable(in);
+      final String contentHash = readNullable(in);
+      final CompactSyncStore.Builder entries = new CompactSyncStore.Builder();
+      while (in.readBoolean()) {
+        entries.add(new DiscordSyncEntry(
+          in.readUTF(),
+          readNullable(in),
+          readNullable(in),
+          readNullable(in),
+          readNullable(in),
+          readNullable(in)
+        ));
+      }
+      return new SyncCacheSnapshot(entries, cursor, etag, contentHash, savedAtMillis);
+    }
+  }
+
+  public static void save(
+    Path file,
+    DiscordSyncCache cache,
+    String cursor,
+    String etag,
+    String contentHash
+  ) throws IOException {
+    Files.createDirectories(file.getParent());
+    final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+      writeNullable(out, cursor);
+      writeNullable(out, etag);
+      writeNullable(out, contentHash);
+      final IOException[] failure = new IOException[1];
+      cache.forEach(entry -> {
+        if (failure[0] != null) {
+          return;
+        }
+        try {
+          out.writeBoolean(true);
+          out.writeUTF(entry.getMcUuid());
+          writeNullable(out, entry.getMcIgn());
+          writeNullable(out, entry.getDiscordUserId());
+          writeNullable(out, entry.getGuildId());
+          writeNullable(out, entry.getOccurredAt());
+          writeNullable(out, entry.getVerifiedAt());
+        } catch (IOException err) {
+          failure[0] = err;
+        }
+      });
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+      out.writeBoolean(false);
+    }
+    try {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException err) {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  public CompactSyncStore.Builder getEntries() {
+    return entries;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public long getSavedAtMillis() {
+    return savedAtMillis;
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+}
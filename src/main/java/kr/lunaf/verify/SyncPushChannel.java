@@ -0,0 +1,223 @@
+package kr.lunaf.verify;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+public class SyncPushChannel {
+  private static final long MIN_BACKOFF_MILLIS = 1000L;
+
+  interface Handler {
+    HttpRequest openRequest() throws Exception;
+
+    boolean verify(JsonObject record);
+
+    void onRecord(JsonObject payload);
+
+    void onResync();
+  }
+
+  private final Logger logger;
+  private final HttpClient client;
+  private final Handler handler;
+  private final long idleTimeoutMillis;
+  private final long maxBackoffMillis;
+  private final ExecutorService streamExecutor;
+  private final ScheduledExecutorService watchdogExecutor;
+  private volatile boolean running;
+  private volatile boolean connected;
+  private volatile long lastActivityMillis;
+  private volatile InputStream activeStream;
+
+  public SyncPushChannel(Logger logger, HttpClient client, Handler handler, long idleTimeoutSeconds, long maxBackoffSeconds) {
+    this.logger = logger;
+    this.client = client;
+    this.handler = handler;
+    this.idleTimeoutMillis = Math.max(10L, idleTimeoutSeconds) * 1000L;
+    this.maxBackoffMillis = Math.max(MIN_BACKOFF_MILLIS, maxBackoffSeconds * 1000L);
+    this.streamExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setName("lunaverifier-sync-push");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.watchdogExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setName("lunaverifier-sync-push-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void start() {
+    running = true;
+    streamExecutor.submit(this::runLoop);
+    watchdogExecutor.scheduleWithFixedDelay(this::checkIdle, 5L, 5L, TimeUnit.SECONDS);
+  }
+
+  public void stop() {
+    running = false;
+    closeActive();
+    watchdogExecutor.shutdownNow();
+    streamExecutor.shutdownNow();
+  }
+
+  public boolean isConnected() {
+    return connected;
+  }
+
+  private void runLoop() {
+    long backoffMillis = MIN_BACKOFF_MILLIS;
+    while (running) {
+      try {
+        final HttpRequest request = handler.openRequest();
+        if (request != null) {
+          final int status = stream(request);
+          if (status == 404 || status == 405 || status == 501) {
+            logger.info("Sync push is not supported by the server (HTTP " + status + "); using polling only.");
+            running = false;
+            return;
+          }
+          if (status == 200) {
+            backoffMillis = MIN_BACKOFF_MILLIS;
+          } else {
+            logger.warning("Sync push connect failed: HTTP " + status);
+          }
+        }
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception err) {
+        if (running && connected) {
+          logger.info("Sync push disconnected: " + err.getMessage());
+        }
+      } finally {
+        connected = false;
+        activeStream = null;
+      }
+      if (!running) {
+        return;
+      }
+      try {
+        Thread.sleep(backoffMillis);
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      backoffMillis = Math.min(maxBackoffMillis, backoffMillis * 2L);
+    }
+  }
+
+  private int stream(HttpRequest request) throws Exception {
+    final HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    try (InputStream body = response.body()) {
+      if (response.statusCode() != 200) {
+        return response.statusCode();
+      }
+      activeStream = body;
+      lastActivityMillis = System.currentTimeMillis();
+      connected = true;
+      if (!running) {
+        return 200;
+      }
+      logger.info("Sync push connected.");
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+      String eventName = null;
+      StringBuilder data = new StringBuilder();
+      String line;
+      while (running && (line = reader.readLine()) != null) {
+        lastActivityMillis = System.currentTimeMillis();
+        if (line.isEmpty()) {
+          dispatch(eventName, data.toString());
+          eventName = null;
+          data = new StringBuilder();
+          continue;
+        }
+        if (line.startsWith(":")) {
+          continue;
+        }
+        final int colon = line.indexOf(':');
+        final String field = colon < 0 ? line : line.substring(0, colon);
+        String value = colon < 0 ? "" : line.substring(colon + 1);
+        if (value.startsWith(" ")) {
+          value = value.substring(1);
+        }
+        if (field.equals("event")) {
+          eventName = value;
+        } else if (field.equals("data")) {
+          if (data.length() > 0) {
+            data.append('\n');
+          }
+          data.append(value);
+        }
+      }
+      if (running) {
+        logger.info("Sync push stream closed by server.");
+      }
+      return 200;
+    }
+  }
+
+  private void dispatch(String eventName, String data) {
+    final String type = eventName == null || eventName.isEmpty() ? "change" : eventName;
+    if (type.equals("ping")) {
+      return;
+    }
+    if (type.equals("resync")) {
+      handler.onResync();
+      return;
+    }
+    if (!type.equals("change") || data.isEmpty()) {
+      return;
+    }
+    final JsonObject record;
+    try {
+      final JsonElement parsed = JsonParser.parseString(data);
+      if (!parsed.isJsonObject()) {
+        return;
+      }
+      record = parsed.getAsJsonObject();
+    } catch (Exception err) {
+      logger.warning("Sync push record is not valid JSON.");
+      return;
+    }
+    final JsonElement payload = record.get("payload");
+    if (payload == null || !payload.isJsonObject() || !handler.verify(record)) {
+      logger.warning("Sync push record rejected: bad signature or payload.");
+      return;
+    }
+    handler.onRecord(payload.getAsJsonObject());
+  }
+
+  private void checkIdle() {
+    if (connected && System.currentTimeMillis() - lastActivityMillis > idleTimeoutMillis) {
+      logger.info("Sync push idle for too long; reconnecting.");
+      closeActive();
+    }
+  }
+
+  private void closeActive() {
+    final InputStream stream = activeStream;
+    if (stream == null) {
+      return;
+    }
+    try {
+      stream.close();
+    } catch (IOException err) {
+      // ignore
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package kr.lunaf.verify;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class SyncResponse {
+  private final int statusCode;
+  private CompactSyncStore.Builder entries;
+  private List<DiscordSyncEntry> upserts = List.of();
+  private List<String> revocations = List.of();
+  private String cursor;
+  private boolean resyncRequired;
+  private int totalPages = -1;
+  private boolean hasMore;
+  private String etag;
+  private String contentHash;
+
+  private SyncResponse(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  public static SyncResponse status(int statusCode) {
+    return new SyncResponse(statusCode);
+  }
+
+  public static SyncResponse read(InputStream body) throws IOException {
+    return read(new InputStreamReader(body, StandardCharsets.UTF_8));
+  }
+
+  public static SyncResponse read(Reader body) throws IOException {
+    final SyncResponse response = new SyncResponse(200);
+    try (JsonReader reader = new JsonReader(body)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "entries":
+            response.entries = readEntryMap(reader, new CompactSyncStore.Builder());
+            break;
+          case "total_pages":
+            response.totalPages = nextInt(reader);
+            break;
+          case "has_more":
+            response.hasMore = nextBoolean(reader);
+            break;
+          case "upserts":
+            response.upserts = readEntryList(reader);
+            break;
+          case "revocations":
+            response.revocations = readRevocations(reader);
+            break;
+          case "cursor":
+            response.cursor = nextString(reader);
+            break;
+          case "resync_required":
+            response.resyncRequired = nextBoolean(reader);
+            break;
+          default:
+            reader.skipValue();
+            break;
+        }
+      }
+      reader.endObject();
+    }
+    return response;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public boolean isSnapshot() {
+    return entries != null;
+  }
+
+  public CompactSyncStore.Builder getEntries() {
+    return entries;
+  }
+
+  public List<DiscordSyncEntry> getUpserts() {
+    return upserts;
+  }
+
+  public List<String> getRevocations() {
+    return revocations;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public boolean isResyncRequired() {
+    return resyncRequired;
+  }
+
+  public int getTotalPages() {
+    return totalPages;
+  }
+
+  public boolean hasMore() {
+    return hasMore;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  void setValidators(String etag, String contentHash) {
+    this.etag = etag;
+    this.contentHash = contentHash;
+  }
+
+  private static CompactSyncStore.Builder readEntryMap(JsonReader reader, CompactSyncStore.Builder next) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return next;
+    }
+    reader.beginArray();
+    while (reader.hasNext()) {
+      final DiscordSyncEntry entry = readEntry(reader);
+      if (entry != null) {
+        next.add(entry);
+      }
+    }
+    reader.endArray();
+    return next;
+  }
+
+  private static List<DiscordSyncEntry> readEntryList(JsonReader reader) throws IOException {
+    final List<DiscordSyncEntry> list = new ArrayList<>();
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return list;
+    }
+    reader.beginArray();
+    while (reader.hasNext()) {
+      final DiscordSyncEntry entry = readEntry(reader);
+      if (entry != null) {
+        list.add(entry);
+      }
+    }
+    reader.endArray();
+    return list;
+  }
+
+  private static DiscordSyncEntry readEntry(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+    String mcUuid = null;
+    String mcIgn = null;
+    String discordUserId = null;
+    String guildId = null;
+    String occurredAt = null;
+    String verifiedAt = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "mc_uuid":
+          mcUuid = nextString(reader);
+          break;
+        case "mc_ign":
+          mcIgn = nextString(reader);
+          break;
+        case "discord_user_id":
+          discordUserId = nextString(reader);
+          break;
+        case "guild_id":
+          guildId = nextString(reader);
+          break;
+        case "occurred_at":
+          occurredAt = nextString(reader);
+          break;
+        case "verified_at":
+          verifiedAt = nextString(reader);
+          break;
+        default:
+          reader.skipValue();
+          break;
+      }
+    }
+    reader.endObject();
+    final String normalizedUuid = normalizeUuid(mcUuid);
+    if (normalizedUuid == null) {
+      return null;
+    }
+    return new DiscordSyncEntry(normalizedUuid, mcIgn, discordUserId, guildId, occurredAt, verifiedAt);
+  }
+
+  private static List<String> readRevocations(JsonReader reader) throws IOException {
+    final List<String> list = new ArrayList<>();
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return list;
+    }
+    reader.beginArray();
+    while (reader.hasNext()) {
+      final String mcUuid;
+      if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+        final DiscordSyncEntry entry = readEntry(reader);
+        mcUuid = entry == null ? null : entry.getMcUuid();
+      } else {
+        mcUuid = normalizeUuid(nextString(reader));
+      }
+      if (mcUuid != null) {
+        list.add(mcUuid);
+      }
+    }
+    reader.endArray();
+    return list;
+  }
+
+  private static String nextString(JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+      return reader.nextString();
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return String.valueOf(reader.nextBoolean());
+    }
+    reader.skipValue();
+    return null;
+  }
+
+  private static boolean nextBoolean(JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.BOOLEAN) {
+      return reader.nextBoolean();
+    }
+    final String value = nextString(reader);
+    return "true".equalsIgnoreCase(value);
+  }
+
+  private static int nextInt(JsonReader reader) throws IOException {
+    final String value = nextString(reader);
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException err) {
+      return -1;
+    }
+  }
+
+  private static String normalizeUuid(String rawUuid) {
+    if (rawUuid == null || rawUuid.isBlank()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(rawUuid.trim()).toString();
+    } catch (IllegalArgumentException err) {
+      return null;
+    }
+  }
+}
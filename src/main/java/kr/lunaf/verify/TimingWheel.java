@@ -0,0 +1,134 @@
+package kr.lunaf.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimingWheel<T> {
+  private final Slot<T>[] slots;
+  private final int mask;
+  private long tick;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(int wheelSize) {
+    int capacity = 1;
+    while (capacity < Math.max(2, wheelSize)) {
+      capacity <<= 1;
+    }
+    this.slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot<>();
+    }
+    this.mask = capacity - 1;
+  }
+
+  public synchronized Timeout<T> schedule(T value, long delayTicks) {
+    final long delay = Math.max(1L, delayTicks);
+    final long deadline = tick + delay;
+    final Timeout<T> timeout = new Timeout<>(value, deadline, (delay - 1) / slots.length);
+    slots[(int) (deadline & mask)].add(timeout);
+    size++;
+    return timeout;
+  }
+
+  public synchronized boolean cancel(Timeout<T> timeout) {
+    if (timeout == null || timeout.slot == null) {
+      return false;
+    }
+    timeout.slot.remove(timeout);
+    size--;
+    return true;
+  }
+
+  public synchronized List<T> advance() {
+    tick++;
+    final Slot<T> slot = slots[(int) (tick & mask)];
+    List<T> expired = null;
+    Timeout<T> node = slot.head;
+    while (node != null) {
+      final Timeout<T> next = node.next;
+      if (node.rounds <= 0) {
+        slot.remove(node);
+        size--;
+        if (expired == null) {
+          expired = new ArrayList<>();
+        }
+        expired.add(node.value);
+      } else {
+        node.rounds--;
+      }
+      node = next;
+    }
+    return expired == null ? List.of() : expired;
+  }
+
+  public synchronized List<Timeout<T>> snapshot() {
+    final List<Timeout<T>> pending = new ArrayList<>(size);
+    for (Slot<T> slot : slots) {
+      for (Timeout<T> node = slot.head; node != null; node = node.next) {
+        pending.add(node);
+      }
+    }
+    return pending;
+  }
+
+  public synchronized long remainingTicks(Timeout<T> timeout) {
+    return Math.max(0L, timeout.deadline - tick);
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public static final class Timeout<T> {
+    private final T value;
+    private final long deadline;
+    private long rounds;
+    private Slot<T> slot;
+    private Timeout<T> prev;
+    private Timeout<T> next;
+
+    private Timeout(T value, long deadline, long rounds) {
+      this.value = value;
+      this.deadline = deadline;
+      this.rounds = rounds;
+    }
+
+    public T getValue() {
+      return value;
+    }
+  }
+
+  private static final class Slot<T> {
+    private Timeout<T> head;
+    private Timeout<T> tail;
+
+    private void add(Timeout<T> timeout) {
+      timeout.slot = this;
+      timeout.prev = tail;
+      timeout.next = null;
+      if (tail == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+      }
+      tail = timeout;
+    }
+
+    private void remove(Timeout<T> timeout) {
+      if (timeout.prev == null) {
+        head = timeout.next;
+      } else {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        tail = timeout.prev;
+      } else {
+        timeout.next.prev = timeout.prev;
+      }
+      timeout.slot = null;
+      timeout.prev = null;
+      timeout.next = null;
+    }
+  }
+}
@@ -17,6 +17,10 @@ public class TokenReplacer {
     }
   }
 
+  public Map<String, String> toMap() {
+    return new HashMap<>(tokens);
+  }
+
   public String apply(String input) {
     if (input == null) {
       return null;
@@ -0,0 +1,137 @@
+package kr.lunaf.verify.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Read-only access to JSON trees shared by payloads, action contexts and events.
+ *
+ * <p>Those objects keep the tree they are built from without copying it. Whoever builds one hands
+ * the tree over and must not modify it afterwards; {@code LunaVerifierApi.buildPayload} and
+ * {@code executeActions} copy their input first. Accessors that return a raw {@code JsonElement}
+ * return a copy, so listeners and handlers can never change what other listeners see.
+ */
+public final class JsonView {
+  private static final JsonView NULL = new JsonView(JsonNull.INSTANCE);
+  private final JsonElement element;
+
+  private JsonView(JsonElement element) {
+    this.element = element;
+  }
+
+  public static JsonView of(JsonElement element) {
+    if (element == null || element.isJsonNull()) {
+      return NULL;
+    }
+    return new JsonView(element);
+  }
+
+  public boolean isObject() {
+    return element.isJsonObject();
+  }
+
+  public boolean isArray() {
+    return element.isJsonArray();
+  }
+
+  public boolean isPrimitive() {
+    return element.isJsonPrimitive();
+  }
+
+  public boolean isNull() {
+    return element.isJsonNull();
+  }
+
+  public boolean has(String key) {
+    return key != null && element.isJsonObject() && element.getAsJsonObject().has(key);
+  }
+
+  public JsonView get(String key) {
+    if (!has(key)) {
+      return NULL;
+    }
+    return of(element.getAsJsonObject().get(key));
+  }
+
+  public JsonView get(int index) {
+    if (!element.isJsonArray() || index < 0 || index >= element.getAsJsonArray().size()) {
+      return NULL;
+    }
+    return of(element.getAsJsonArray().get(index));
+  }
+
+  public int size() {
+    if (element.isJsonArray()) {
+      return element.getAsJsonArray().size();
+    }
+    if (element.isJsonObject()) {
+      return element.getAsJsonObject().size();
+    }
+    return 0;
+  }
+
+  public Set<String> keys() {
+    if (!element.isJsonObject()) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(element.getAsJsonObject().keySet());
+  }
+
+  public String asString() {
+    if (!element.isJsonPrimitive()) {
+      return null;
+    }
+    return element.getAsString();
+  }
+
+  public String getString(String key) {
+    return get(key).asString();
+  }
+
+  public long getLong(String key, long fallback) {
+    final JsonView value = get(key);
+    if (!value.isPrimitive()) {
+      return fallback;
+    }
+    try {
+      return value.element.getAsLong();
+    } catch (Exception err) {
+      return fallback;
+    }
+  }
+
+  public int getInt(String key, int fallback) {
+    final JsonView value = get(key);
+    if (!value.isPrimitive()) {
+      return fallback;
+    }
+    try {
+      return value.element.getAsInt();
+    } catch (Exception err) {
+      return fallback;
+    }
+  }
+
+  public boolean getBoolean(String key, boolean fallback) {
+    final JsonView value = get(key);
+    if (!value.isPrimitive()) {
+      return fallback;
+    }
+    try {
+      return value.element.getAsBoolean();
+    } catch (Exception err) {
+      return fallback;
+    }
+  }
+
+  public JsonElement toMutableCopy() {
+    return element.deepCopy();
+  }
+
+  @Override
+  public String toString() {
+    return element.toString();
+  }
+}
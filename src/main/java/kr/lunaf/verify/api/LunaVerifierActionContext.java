@@ -24,7 +24,7 @@ public final class LunaVerifierActionContext {
   ) {
     this.plugin = plugin;
     this.actionType = actionType;
-    this.action = action == null ? null : action.deepCopy().getAsJsonObject();
+    this.action = action;
     this.tokens = tokens;
     this.eventType = eventType;
     this.payload = payload;
@@ -46,6 +46,10 @@ public final class LunaVerifierActionContext {
     return action.deepCopy().getAsJsonObject();
   }
 
+  public JsonView getActionView() {
+    return JsonView.of(action);
+  }
+
   public TokenReplacer getTokens() {
     return tokens;
   }
@@ -2,12 +2,41 @@ package kr.lunaf.verify.api;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import kr.lunaf.verify.DiscordSyncEntry;
 import kr.lunaf.verify.TokenReplacer;
 
 public interface LunaVerifierApi {
   void registerActionHandler(String type, LunaVerifierActionHandler handler);
 
+  default void registerActionHandler(String type, LunaVerifierActionHandler handler, LunaVerifierHandlerOptions options) {
+    registerActionHandler(type, handler);
+  }
+
+  default void registerAsyncActionHandler(
+    String type,
+    LunaVerifierAsyncActionHandler handler,
+    LunaVerifierHandlerOptions options
+  ) {
+    if (handler == null) {
+      return;
+    }
+    final LunaVerifierHandlerOptions resolved = options == null ? LunaVerifierHandlerOptions.inline() : options;
+    // Worker threads wait for the future; inline and main-thread handlers must not block, so they only start it.
+    final boolean await = resolved.getExecution() == LunaVerifierHandlerOptions.Execution.ASYNC_POOL
+      || resolved.getExecution() == LunaVerifierHandlerOptions.Execution.VIRTUAL_THREAD;
+    registerActionHandler(type, context -> {
+      final CompletableFuture<Void> future = handler.handle(context);
+      if (await && future != null) {
+        future.join();
+      }
+    }, resolved);
+  }
+
   void unregisterActionHandler(String type);
 
   boolean hasActionHandler(String type);
@@ -17,4 +46,59 @@ public interface LunaVerifierApi {
   void executeActions(JsonArray actions, TokenReplacer tokens, String eventType, LunaVerifierPayload payload);
 
   LunaVerifierPayload buildPayload(JsonObject payload);
+
+  default List<DiscordSyncEntry> getDiscordSyncList() {
+    return List.of();
+  }
+
+  default DiscordSyncEntry getDiscordSyncEntry(UUID uuid) {
+    if (uuid == null) {
+      return null;
+    }
+    final String key = uuid.toString();
+    for (DiscordSyncEntry entry : getDiscordSyncList()) {
+      if (key.equalsIgnoreCase(entry.getMcUuid())) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  default DiscordSyncEntry getDiscordSyncEntryByDiscordId(String discordUserId) {
+    if (discordUserId == null) {
+      return null;
+    }
+    for (DiscordSyncEntry entry : getDiscordSyncList()) {
+      if (discordUserId.equals(entry.getDiscordUserId())) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  default DiscordSyncEntry getDiscordSyncEntryByIgn(String ign) {
+    if (ign == null || ign.isBlank()) {
+      return null;
+    }
+    final String key = ign.trim();
+    for (DiscordSyncEntry entry : getDiscordSyncList()) {
+      if (entry.getMcIgn() != null && entry.getMcIgn().trim().equalsIgnoreCase(key)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  default List<DiscordSyncEntry> getDiscordSyncEntriesByGuild(String guildId) {
+    if (guildId == null) {
+      return List.of();
+    }
+    final List<DiscordSyncEntry> entries = new ArrayList<>();
+    for (DiscordSyncEntry entry : getDiscordSyncList()) {
+      if (guildId.equals(entry.getGuildId())) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
 }
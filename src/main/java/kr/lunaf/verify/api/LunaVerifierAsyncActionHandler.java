@@ -0,0 +1,8 @@
+package kr.lunaf.verify.api;
+
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface LunaVerifierAsyncActionHandler {
+  CompletableFuture<Void> handle(LunaVerifierActionContext context);
+}
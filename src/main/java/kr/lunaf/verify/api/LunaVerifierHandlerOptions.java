@@ -0,0 +1,48 @@
+package kr.lunaf.verify.api;
+
+public final class LunaVerifierHandlerOptions {
+  public enum Execution {
+    INLINE,
+    MAIN_THREAD,
+    ASYNC_POOL,
+    VIRTUAL_THREAD
+  }
+
+  private static final LunaVerifierHandlerOptions INLINE = new LunaVerifierHandlerOptions(Execution.INLINE, 0L, 1, 0);
+
+  private final Execution execution;
+  private final long timeoutMillis;
+  private final int maxConcurrency;
+  private final int queueSize;
+
+  public LunaVerifierHandlerOptions(Execution execution, long timeoutMillis, int maxConcurrency, int queueSize) {
+    this.execution = execution == null ? Execution.INLINE : execution;
+    this.timeoutMillis = Math.max(0L, timeoutMillis);
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.queueSize = Math.max(0, queueSize);
+  }
+
+  public static LunaVerifierHandlerOptions inline() {
+    return INLINE;
+  }
+
+  public static LunaVerifierHandlerOptions of(Execution execution, long timeoutMillis) {
+    return new LunaVerifierHandlerOptions(execution, timeoutMillis, 2, 100);
+  }
+
+  public Execution getExecution() {
+    return execution;
+  }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+}
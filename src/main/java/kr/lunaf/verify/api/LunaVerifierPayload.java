@@ -49,7 +49,7 @@ public final class LunaVerifierPayload {
       getString(payload, "guild_id"),
       getString(payload, "channel_id"),
       getString(payload, "occurred_at"),
-      payload.deepCopy().getAsJsonObject()
+      payload
     );
   }
 
@@ -92,6 +92,10 @@ public final class LunaVerifierPayload {
     return rawPayload.deepCopy().getAsJsonObject();
   }
 
+  public JsonView getRawPayloadView() {
+    return JsonView.of(rawPayload);
+  }
+
   private static String getString(JsonObject obj, String key) {
     if (obj == null || key == null || !obj.has(key) || obj.get(key).isJsonNull()) {
       return null;
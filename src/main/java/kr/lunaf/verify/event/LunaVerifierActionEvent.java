@@ -2,6 +2,7 @@ package kr.lunaf.verify.event;
 
 import com.google.gson.JsonObject;
 import kr.lunaf.verify.TokenReplacer;
+import kr.lunaf.verify.api.JsonView;
 import kr.lunaf.verify.api.LunaVerifierPayload;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
@@ -26,7 +27,7 @@ public class LunaVerifierActionEvent extends Event implements Cancellable {
   ) {
     super(async);
     this.actionType = actionType;
-    this.action = action == null ? null : action.deepCopy().getAsJsonObject();
+    this.action = action;
     this.tokens = tokens;
     this.eventType = eventType;
     this.payload = payload;
@@ -43,6 +44,10 @@ public class LunaVerifierActionEvent extends Event implements Cancellable {
     return action.deepCopy().getAsJsonObject();
   }
 
+  public JsonView getActionView() {
+    return JsonView.of(action);
+  }
+
   public TokenReplacer getTokens() {
     return tokens;
   }
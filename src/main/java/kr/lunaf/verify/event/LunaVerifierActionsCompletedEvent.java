@@ -0,0 +1,66 @@
+package kr.lunaf.verify.event;
+
+import kr.lunaf.verify.api.LunaVerifierPayload;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+public class LunaVerifierActionsCompletedEvent extends Event {
+  private static final HandlerList HANDLERS = new HandlerList();
+  private final LunaVerifierPayload payload;
+  private final String eventType;
+  private final int succeeded;
+  private final int failed;
+  private final int skipped;
+  private final long durationMillis;
+
+  public LunaVerifierActionsCompletedEvent(
+    boolean async,
+    LunaVerifierPayload payload,
+    String eventType,
+    int succeeded,
+    int failed,
+    int skipped,
+    long durationMillis
+  ) {
+    super(async);
+    this.payload = payload;
+    this.eventType = eventType;
+    this.succeeded = succeeded;
+    this.failed = failed;
+    this.skipped = skipped;
+    this.durationMillis = durationMillis;
+  }
+
+  public LunaVerifierPayload getPayload() {
+    return payload;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public int getSucceeded() {
+    return succeeded;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public int getSkipped() {
+    return skipped;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+}
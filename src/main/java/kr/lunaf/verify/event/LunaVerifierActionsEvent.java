@@ -1,6 +1,7 @@
 package kr.lunaf.verify.event;
 
 import com.google.gson.JsonArray;
+import kr.lunaf.verify.api.JsonView;
 import kr.lunaf.verify.api.LunaVerifierPayload;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
@@ -15,7 +16,7 @@ public class LunaVerifierActionsEvent extends Event implements Cancellable {
   public LunaVerifierActionsEvent(boolean async, LunaVerifierPayload payload, JsonArray actions) {
     super(async);
     this.payload = payload;
-    this.actions = actions == null ? null : actions.deepCopy().getAsJsonArray();
+    this.actions = actions;
   }
 
   public LunaVerifierPayload getPayload() {
@@ -29,6 +30,10 @@ public class LunaVerifierActionsEvent extends Event implements Cancellable {
     return actions.deepCopy().getAsJsonArray();
   }
 
+  public JsonView getActionsView() {
+    return JsonView.of(actions);
+  }
+
   @Override
   public boolean isCancelled() {
     return cancelled;
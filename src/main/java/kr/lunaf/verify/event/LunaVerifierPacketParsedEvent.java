@@ -1,6 +1,7 @@
 package kr.lunaf.verify.event;
 
 import com.google.gson.JsonObject;
+import kr.lunaf.verify.api.JsonView;
 import org.bukkit.event.Event;
 import org.bukkit.event.HandlerList;
 
@@ -10,7 +11,7 @@ public class LunaVerifierPacketParsedEvent extends Event {
 
   public LunaVerifierPacketParsedEvent(boolean async, JsonObject packet) {
     super(async);
-    this.packet = packet == null ? null : packet.deepCopy().getAsJsonObject();
+    this.packet = packet;
   }
 
   public JsonObject getPacket() {
@@ -20,6 +21,10 @@ public class LunaVerifierPacketParsedEvent extends Event {
     return packet.deepCopy().getAsJsonObject();
   }
 
+  public JsonView getPacketView() {
+    return JsonView.of(packet);
+  }
+
   @Override
   public HandlerList getHandlers() {
     return HANDLERS;
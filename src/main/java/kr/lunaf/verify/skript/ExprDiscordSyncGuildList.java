@@ -0,0 +1,53 @@
+package kr.lunaf.verify.skript;
+
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+import java.util.List;
+import kr.lunaf.verify.DiscordSyncEntry;
+import kr.lunaf.verify.LunaVerifierPlugin;
+import org.bukkit.event.Event;
+
+public class ExprDiscordSyncGuildList extends SimpleExpression<String> {
+  private Expression<String> guildExpr;
+
+  @Override
+  public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, SkriptParser.ParseResult parseResult) {
+    guildExpr = (Expression<String>) exprs[0];
+    return true;
+  }
+
+  @Override
+  protected String[] get(Event event) {
+    final String guildId = guildExpr.getSingle(event);
+    if (guildId == null || guildId.isBlank()) {
+      return new String[0];
+    }
+    final LunaVerifierPlugin plugin = LunaVerifierPlugin.getInstance();
+    if (plugin == null) {
+      return new String[0];
+    }
+    final List<DiscordSyncEntry> entries = plugin.getDiscordSyncEntriesByGuild(guildId.trim());
+    final String[] values = new String[entries.size()];
+    for (int i = 0; i < entries.size(); i++) {
+      values[i] = entries.get(i).getMcUuid();
+    }
+    return values;
+  }
+
+  @Override
+  public boolean isSingle() {
+    return false;
+  }
+
+  @Override
+  public Class<? extends String> getReturnType() {
+    return String.class;
+  }
+
+  @Override
+  public String toString(Event event, boolean debug) {
+    return "discord sync list of guild";
+  }
+}
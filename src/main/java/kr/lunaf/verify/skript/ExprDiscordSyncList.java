@@ -4,8 +4,6 @@ import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
-import java.util.List;
-import kr.lunaf.verify.DiscordSyncEntry;
 import kr.lunaf.verify.LunaVerifierPlugin;
 import org.bukkit.event.Event;
 
@@ -21,13 +19,7 @@ public class ExprDiscordSyncList extends SimpleExpression<String> {
     if (plugin == null) {
       return new String[0];
     }
-    final List<DiscordSyncEntry> entries = plugin.getDiscordSyncList();
-    final String[] values = new String[entries.size()];
-    for (int i = 0; i < entries.size(); i++) {
-      final DiscordSyncEntry entry = entries.get(i);
-      values[i] = entry != null ? entry.getMcUuid() : "";
-    }
-    return values;
+    return plugin.getDiscordSyncSnapshot().getUuidArray();
   }
 
   @Override
@@ -0,0 +1,55 @@
+package kr.lunaf.verify.skript;
+
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+import kr.lunaf.verify.DiscordSyncEntry;
+import kr.lunaf.verify.LunaVerifierPlugin;
+import org.bukkit.event.Event;
+
+public class ExprDiscordSyncLookup extends SimpleExpression<String> {
+  private Expression<String> keyExpr;
+  private boolean byIgn;
+
+  @Override
+  public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, SkriptParser.ParseResult parseResult) {
+    keyExpr = (Expression<String>) exprs[0];
+    byIgn = matchedPattern == 1;
+    return true;
+  }
+
+  @Override
+  protected String[] get(Event event) {
+    final String key = keyExpr.getSingle(event);
+    if (key == null || key.isBlank()) {
+      return new String[0];
+    }
+    final LunaVerifierPlugin plugin = LunaVerifierPlugin.getInstance();
+    if (plugin == null) {
+      return new String[0];
+    }
+    final DiscordSyncEntry entry = byIgn
+      ? plugin.getDiscordSyncEntryByIgn(key)
+      : plugin.getDiscordSyncEntryByDiscordId(key.trim());
+    if (entry == null) {
+      return new String[0];
+    }
+    return new String[] { entry.getMcUuid() };
+  }
+
+  @Override
+  public boolean isSingle() {
+    return true;
+  }
+
+  @Override
+  public Class<? extends String> getReturnType() {
+    return String.class;
+  }
+
+  @Override
+  public String toString(Event event, boolean debug) {
+    return byIgn ? "discord sync uuid of ign" : "discord sync uuid of discord id";
+  }
+}
@@ -41,5 +41,18 @@ public final class SkriptAddonBootstrap {
       "discord sync occurred at of %player%",
       "discord sync verified at of %player%"
     );
+    Skript.registerExpression(
+      ExprDiscordSyncLookup.class,
+      String.class,
+      ExpressionType.COMBINED,
+      "discord sync uuid of discord id %string%",
+      "discord sync uuid of ign %string%"
+    );
+    Skript.registerExpression(
+      ExprDiscordSyncGuildList.class,
+      String.class,
+      ExpressionType.COMBINED,
+      "discord sync [uuid] list of guild %string%"
+    );
   }
 }
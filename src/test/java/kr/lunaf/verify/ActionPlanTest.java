@@ -0,0 +1,58 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import java.util.List;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+class ActionPlanTest {
+  private static ActionPlan compile(String json) {
+    final JsonArray actions = JsonParser.parseString(json).getAsJsonArray();
+    return ActionPlan.compile(actions, Logger.getLogger("ActionPlanTest"));
+  }
+
+  @Test
+  void runsActionsInListedOrderByDefault() {
+    final List<ActionPlan.Step> steps = compile(
+      "[{\"type\":\"broadcast\"},{\"type\":\"console_command\"},{\"type\":\"http_request\"}]"
+    ).getSteps();
+
+    assertEquals(-1, steps.get(0).getPrevious());
+    assertEquals(0, steps.get(1).getPrevious());
+    assertEquals(1, steps.get(2).getPrevious());
+  }
+
+  @Test
+  void parallelActionsDoNotWaitForThePreviousOne() {
+    final List<ActionPlan.Step> steps = compile(
+      "[{\"type\":\"broadcast\"},{\"type\":\"http_request\",\"parallel\":true}]"
+    ).getSteps();
+
+    assertEquals(-1, steps.get(1).getPrevious());
+  }
+
+  @Test
+  void resolvesOnlyEarlierIds() {
+    final List<ActionPlan.Step> steps = compile(
+      "[{\"id\":\"a\",\"type\":\"broadcast\",\"after\":\"b\"},"
+        + "{\"id\":\"b\",\"type\":\"broadcast\",\"after\":[\"a\",\"missing\"]},"
+        + "{\"type\":\"broadcast\",\"after\":[\"a\",\"b\",\"a\"]}]"
+    ).getSteps();
+
+    assertArrayEquals(new int[0], steps.get(0).getDependencies());
+    assertArrayEquals(new int[] {0}, steps.get(1).getDependencies());
+    assertArrayEquals(new int[] {0, 1}, steps.get(2).getDependencies());
+  }
+
+  @Test
+  void skipsEntriesWithoutType() {
+    final ActionPlan plan = compile("[{\"id\":\"x\"},{\"type\":\"broadcast\",\"after\":\"x\"}]");
+
+    assertEquals(1, plan.getSteps().size());
+    assertArrayEquals(new int[0], plan.getSteps().get(0).getDependencies());
+  }
+}
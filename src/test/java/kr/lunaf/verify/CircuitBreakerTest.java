@@ -0,0 +1,57 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+  private static CircuitBreaker breaker() {
+    return new CircuitBreaker(new CircuitBreaker.Settings(10, 4, 50, 30_000L, 1));
+  }
+
+  @Test
+  void opensOnceTheFailureRateIsReached() {
+    final CircuitBreaker breaker = breaker();
+    breaker.onResult(breaker.tryAcquire(), true);
+    breaker.onResult(breaker.tryAcquire(), true);
+    breaker.onResult(breaker.tryAcquire(), false);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    breaker.onResult(breaker.tryAcquire(), false);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertEquals(CircuitBreaker.Permit.REJECTED, breaker.tryAcquire());
+  }
+
+  @Test
+  void rateLimitOpensUntilRetryAfter() {
+    final CircuitBreaker breaker = breaker();
+    breaker.onRateLimited(breaker.tryAcquire(), 120_000L);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertEquals(1L, breaker.getOpenCount());
+  }
+
+  @Test
+  void rateLimitWithoutRetryAfterCountsAsFailure() {
+    final CircuitBreaker breaker = breaker();
+    for (int i = 0; i < 4; i++) {
+      breaker.onRateLimited(breaker.tryAcquire(), -1L);
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void parsesRetryAfterSecondsAndDates() {
+    assertEquals(120_000L, CircuitBreaker.parseRetryAfterMillis("120"));
+    assertEquals(-1L, CircuitBreaker.parseRetryAfterMillis(null));
+    assertEquals(-1L, CircuitBreaker.parseRetryAfterMillis("soon"));
+    final String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+    final long millis = CircuitBreaker.parseRetryAfterMillis(date);
+    assertTrue(millis > 55_000L && millis <= 60_000L, "Retry-After date parsed to " + millis);
+  }
+}
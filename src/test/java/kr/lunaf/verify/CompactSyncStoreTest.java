@@ -0,0 +1,74 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class CompactSyncStoreTest {
+  private static final String ALICE = "00000000-0000-0000-0000-000000000001";
+  private static final String BOB = "00000000-0000-0000-0000-000000000002";
+  private static final String CAROL = "00000000-0000-0000-0000-000000000003";
+
+  @Test
+  void findsRowsByEveryIndex() {
+    final CompactSyncStore store = new CompactSyncStore.Builder()
+      .add(new DiscordSyncEntry(ALICE, "Alice", "111", "guild-a", "2024-01-01T00:00:00Z", null))
+      .add(new DiscordSyncEntry(BOB, "Bob", "222", "guild-b", null, "2024-01-02T03:04:05.678Z"))
+      .add(new DiscordSyncEntry(CAROL, "Carol", "333", "guild-a", null, null))
+      .build();
+
+    assertEquals(3, store.size());
+    assertEquals(ALICE, store.entry(store.find(UUID.fromString(ALICE))).getMcUuid());
+    assertEquals("Bob", store.entry(store.findByDiscordId("222")).getMcIgn());
+    assertEquals("Carol", store.entry(store.findByIgn("  CAROL ")).getMcIgn());
+    assertEquals(2, store.findByGuild("guild-a").length);
+    assertEquals("2024-01-01T00:00:00Z", store.entry(store.find(ALICE)).getOccurredAt());
+    assertEquals("2024-01-02T03:04:05.678Z", store.entry(store.find(BOB)).getVerifiedAt());
+    assertEquals(-1, store.find(UUID.randomUUID()));
+    assertEquals(-1, store.findByDiscordId("999"));
+    assertEquals(-1, store.findByIgn("nobody"));
+    assertEquals(0, store.findByGuild("guild-c").length);
+  }
+
+  @Test
+  void matchesStoredIgnWithSurroundingSpaces() {
+    final CompactSyncStore store = new CompactSyncStore.Builder()
+      .add(new DiscordSyncEntry(ALICE, " Alice ", "111", null, null, null))
+      .build();
+
+    assertEquals(" Alice ", store.entry(store.findByIgn("alice")).getMcIgn());
+  }
+
+  @Test
+  void lastEntryForUuidWins() {
+    final CompactSyncStore.Builder builder = new CompactSyncStore.Builder()
+      .add(new DiscordSyncEntry(ALICE, "Alice", "111", null, null, null))
+      .add(new DiscordSyncEntry(ALICE, "Alice2", "not-a-number", null, null, null))
+      .add(new DiscordSyncEntry(BOB, "Bob", "not-a-number", null, null, null))
+      .add(new DiscordSyncEntry(BOB, "Bob2", "222", null, null, null));
+    final CompactSyncStore store = builder.build();
+
+    assertEquals(-1, store.find(ALICE));
+    assertEquals(1, builder.getIrregular().size());
+    assertEquals("Alice2", builder.getIrregular().get(0).getMcIgn());
+    assertEquals("Bob2", store.entry(store.find(BOB)).getMcIgn());
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  void addAllAppendsRowsInOrder() {
+    final CompactSyncStore.Builder first = new CompactSyncStore.Builder()
+      .add(new DiscordSyncEntry(ALICE, "Alice", "111", "guild-a", null, null));
+    final CompactSyncStore.Builder second = new CompactSyncStore.Builder()
+      .add(new DiscordSyncEntry(ALICE, "Alice2", "111", "guild-b", null, null))
+      .add(new DiscordSyncEntry(BOB, "Bob", "222", "guild-b", null, null));
+    final CompactSyncStore store = first.addAll(second).build();
+
+    assertEquals(2, store.size());
+    assertEquals("Alice2", store.entry(store.find(ALICE)).getMcIgn());
+    assertEquals(2, store.findByGuild("guild-b").length);
+    assertTrue(store.findByGuild("guild-a").length == 0);
+  }
+}
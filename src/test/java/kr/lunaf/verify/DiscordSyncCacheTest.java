@@ -0,0 +1,123 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class DiscordSyncCacheTest {
+  private static DiscordSyncEntry entry(int index) {
+    return new DiscordSyncEntry(
+      new UUID(0L, index).toString(),
+      "Player" + index,
+      Long.toString(100_000L + index),
+      index % 2 == 0 ? "guild-a" : "guild-b",
+      "2024-01-01T00:00:00Z",
+      null
+    );
+  }
+
+  private static DiscordSyncCache filledCache(int size) {
+    final CompactSyncStore.Builder builder = new CompactSyncStore.Builder();
+    for (int i = 0; i < size; i++) {
+      builder.add(entry(i));
+    }
+    final DiscordSyncCache cache = new DiscordSyncCache();
+    cache.replaceAll(builder, false);
+    return cache;
+  }
+
+  @Test
+  void containsByUuidDoesNotAllocate() {
+    final DiscordSyncCache cache = filledCache(10_000);
+    cache.put(entry(10_000));
+    final UUID[] keys = new UUID[1024];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new UUID(0L, i * 13);
+    }
+    final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    int hits = 0;
+    for (int i = 0; i < 200_000; i++) {
+      hits += cache.contains(keys[i & 1023]) ? 1 : 0;
+    }
+    final long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 1_000_000; i++) {
+      hits += cache.contains(keys[i & 1023]) ? 1 : 0;
+    }
+    final long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    assertTrue(hits > 0);
+    assertTrue(allocated < 64 * 1024, "contains(UUID) allocated " + allocated + " bytes for 1M lookups");
+  }
+
+  @Test
+  void getReturnsTheStoredValues() {
+    final DiscordSyncCache cache = filledCache(100);
+    final DiscordSyncEntry found = cache.get(new UUID(0L, 42));
+    assertEquals("Player42", found.getMcIgn());
+    assertEquals("100042", found.getDiscordUserId());
+    assertEquals("guild-a", found.getGuildId());
+    assertEquals("2024-01-01T00:00:00Z", found.getOccurredAt());
+  }
+
+  @Test
+  void snapshotHidesShadowedRowsAndStaysStable() {
+    final DiscordSyncCache cache = filledCache(10);
+    cache.remove(new UUID(0L, 3).toString());
+    cache.put(entry(20));
+    final DiscordSyncSnapshot snapshot = cache.snapshot();
+    assertEquals(10, snapshot.size());
+    assertEquals(10, snapshot.getEntries().size());
+    final List<String> uuids = Arrays.asList(snapshot.getUuidArray());
+    assertFalse(uuids.contains(new UUID(0L, 3).toString()));
+    assertTrue(uuids.contains(new UUID(0L, 20).toString()));
+
+    cache.put(entry(21));
+    assertEquals(10, snapshot.size());
+    assertEquals(11, cache.snapshot().size());
+    assertEquals(cache.getVersion(), cache.snapshot().getVersion());
+  }
+
+  @Test
+  void replaceAllReportsChangesAgainstThePreviousState() {
+    final DiscordSyncCache cache = filledCache(3);
+    cache.put(entry(5));
+    final CompactSyncStore.Builder next = new CompactSyncStore.Builder();
+    next.add(entry(0));
+    next.add(new DiscordSyncEntry(new UUID(0L, 1).toString(), "Renamed", "100001", "guild-b", null, null));
+    next.add(entry(4));
+    final Map<DiscordSyncAction, Integer> counts = new EnumMap<>(DiscordSyncAction.class);
+    for (DiscordSyncChange change : cache.replaceAll(next, true)) {
+      counts.merge(change.getAction(), 1, Integer::sum);
+    }
+    assertEquals(2, (int) counts.get(DiscordSyncAction.REVOKED));
+    assertEquals(1, (int) counts.get(DiscordSyncAction.REVERIFIED));
+    assertEquals(1, (int) counts.get(DiscordSyncAction.SYNCED));
+    assertEquals(3, cache.size());
+    assertEquals("Renamed", cache.getByIgn("renamed").getMcIgn());
+  }
+
+  @Test
+  void compactionKeepsEveryLiveEntry() {
+    final DiscordSyncCache cache = filledCache(1000);
+    for (int i = 0; i < 5000; i++) {
+      cache.put(entry(1000 + i));
+    }
+    for (int i = 0; i < 500; i++) {
+      cache.remove(new UUID(0L, i).toString());
+    }
+    assertEquals(5500, cache.size());
+    assertEquals(5500, cache.snapshot().size());
+    assertFalse(cache.contains(new UUID(0L, 10)));
+    assertEquals("Player5999", cache.get(new UUID(0L, 5999)).getMcIgn());
+    assertEquals("Player700", cache.getByIgn("player700").getMcIgn());
+    assertEquals(2750, cache.getByGuild("guild-a").size());
+  }
+}
@@ -0,0 +1,79 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.util.List;
+import java.util.logging.Logger;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+class EgressPolicyTest {
+  private static EgressPolicy policy(List<String> hosts, List<String> blocked, List<String> allowed) {
+    final YamlConfiguration config = new YamlConfiguration();
+    config.set("http-allowlist", hosts);
+    config.set("http-blocked-cidrs", blocked);
+    config.set("http-allowed-cidrs", allowed);
+    return EgressPolicy.fromConfig(config, Logger.getLogger("EgressPolicyTest"));
+  }
+
+  private static EgressPolicy.Verdict check(EgressPolicy policy, String url) {
+    return policy.check(URI.create(url));
+  }
+
+  @Test
+  void matchesIpv4PrefixesOnBitBoundaries() {
+    final EgressPolicy policy = policy(
+      List.of("10.1.2.3", "192.168.1.1", "192.168.2.1", "8.8.8.8"),
+      List.of("10.0.0.0/8", "192.168.0.0/23"),
+      List.of()
+    );
+
+    assertEquals(EgressPolicy.Verdict.BLOCKED_ADDRESS, check(policy, "https://10.1.2.3/hook"));
+    assertEquals(EgressPolicy.Verdict.BLOCKED_ADDRESS, check(policy, "https://192.168.1.1/hook"));
+    assertEquals(EgressPolicy.Verdict.ALLOWED, check(policy, "https://192.168.2.1/hook"));
+    assertEquals(EgressPolicy.Verdict.ALLOWED, check(policy, "https://8.8.8.8/hook"));
+  }
+
+  @Test
+  void allowedCidrsCarveOutOfBlockedRanges() {
+    final EgressPolicy policy = policy(
+      List.of("10.9.1.1", "10.8.1.1"),
+      List.of("10.0.0.0/8"),
+      List.of("10.9.0.0/16")
+    );
+
+    assertEquals(EgressPolicy.Verdict.ALLOWED, check(policy, "https://10.9.1.1/hook"));
+    assertEquals(EgressPolicy.Verdict.BLOCKED_ADDRESS, check(policy, "https://10.8.1.1/hook"));
+  }
+
+  @Test
+  void matchesIpv6Addresses() {
+    final EgressPolicy policy = policy(
+      List.of("[::1]", "[2001:db8::1]"),
+      List.of("::1/128", "fc00::/7"),
+      List.of()
+    );
+
+    assertEquals(EgressPolicy.Verdict.BLOCKED_ADDRESS, check(policy, "https://[::1]/hook"));
+    assertEquals(EgressPolicy.Verdict.ALLOWED, check(policy, "https://[2001:db8::1]/hook"));
+  }
+
+  @Test
+  void failsClosedWhenAHostCannotBeResolved() {
+    final EgressPolicy policy = policy(List.of("*.invalid"), List.of("10.0.0.0/8"), List.of());
+
+    assertEquals(EgressPolicy.Verdict.BLOCKED_ADDRESS, check(policy, "https://hook.lunaverifier.invalid/"));
+  }
+
+  @Test
+  void checksSchemePortAndHostBeforeAddresses() {
+    final EgressPolicy policy = policy(List.of("*.example.com"), List.of(), List.of());
+
+    assertEquals(EgressPolicy.Verdict.BLOCKED_SCHEME, check(policy, "ftp://hooks.example.com/"));
+    assertEquals(EgressPolicy.Verdict.BLOCKED_PORT, check(policy, "https://hooks.example.com:8443/"));
+    assertEquals(EgressPolicy.Verdict.BLOCKED_HOST, check(policy, "https://example.org/"));
+    assertEquals(EgressPolicy.Verdict.BLOCKED_HOST, check(policy, "https://example.com/"));
+    assertEquals(EgressPolicy.Verdict.ALLOWED, check(policy, "https://hooks.example.com/"));
+  }
+}
@@ -0,0 +1,68 @@
+package kr.lunaf.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+  private static List<List<String>> advance(TimingWheel<String> wheel, int ticks) {
+    final List<List<String>> expired = new ArrayList<>();
+    for (int i = 0; i < ticks; i++) {
+      expired.add(wheel.advance());
+    }
+    return expired;
+  }
+
+  @Test
+  void expiresEachValueOnItsTick() {
+    final TimingWheel<String> wheel = new TimingWheel<>(8);
+    wheel.schedule("c", 5);
+    wheel.schedule("a", 1);
+    wheel.schedule("b", 3);
+
+    final List<List<String>> expired = advance(wheel, 6);
+    assertEquals(List.of("a"), expired.get(0));
+    assertEquals(List.of(), expired.get(1));
+    assertEquals(List.of("b"), expired.get(2));
+    assertEquals(List.of("c"), expired.get(4));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void keepsScheduleOrderWithinATick() {
+    final TimingWheel<String> wheel = new TimingWheel<>(4);
+    wheel.schedule("first", 2);
+    wheel.schedule("second", 2);
+    wheel.schedule("third", 2);
+
+    assertEquals(List.of("first", "second", "third"), advance(wheel, 2).get(1));
+  }
+
+  @Test
+  void waitsFullRoundsForDelaysLongerThanTheWheel() {
+    final TimingWheel<String> wheel = new TimingWheel<>(4);
+    wheel.schedule("late", 10);
+    wheel.schedule("early", 2);
+
+    final List<List<String>> expired = advance(wheel, 10);
+    assertEquals(List.of("early"), expired.get(1));
+    for (int i = 2; i < 9; i++) {
+      assertTrue(expired.get(i).isEmpty(), "tick " + (i + 1) + " expired " + expired.get(i));
+    }
+    assertEquals(List.of("late"), expired.get(9));
+  }
+
+  @Test
+  void cancelledValuesNeverExpire() {
+    final TimingWheel<String> wheel = new TimingWheel<>(8);
+    final TimingWheel.Timeout<String> cancelled = wheel.schedule("gone", 2);
+    wheel.schedule("kept", 2);
+
+    assertTrue(wheel.cancel(cancelled));
+    assertEquals(List.of("kept"), advance(wheel, 2).get(1));
+    assertEquals(0, wheel.size());
+  }
+}